@@ -0,0 +1,151 @@
+package br.ce.wcaquino.benchmarks;
+
+import br.ce.wcaquino.exceptions.NaoPodeDividirPorZeroException;
+import br.ce.wcaquino.servicos.Calculadora;
+import br.ce.wcaquino.servicos.ResultadoDivisao;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.SplittableRandom;
+
+/**
+ * Compara as operacoes em lote da {@link Calculadora} com o laco chamando a versao escalar.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CalculadoraBenchmark {
+
+    @Param({"1024", "65536"})
+    private int tamanho;
+
+    private final Calculadora calc = new Calculadora();
+    private int[] a;
+    private int[] b;
+    private int[] destino;
+    private long[] longos;
+    private ByteBuffer linhas;
+    private final ResultadoDivisao resultado = new ResultadoDivisao();
+
+    @Setup
+    public void setup() {
+        SplittableRandom aleatorio = new SplittableRandom(42);
+        a = new int[tamanho];
+        b = new int[tamanho];
+        destino = new int[tamanho];
+        longos = new long[tamanho];
+        for (int i = 0; i < tamanho; i++) {
+            a[i] = aleatorio.nextInt(1_000_000);
+            b[i] = 1 + aleatorio.nextInt(1_000);
+            longos[i] = a[i];
+        }
+        StringBuilder texto = new StringBuilder();
+        for (int i = 0; i < 1_000; i++) {
+            // uma linha em cada dez e invalida
+            texto.append(i % 10 == 0 ? "x" : String.valueOf(a[i])).append(';').append(b[i]).append('\n');
+        }
+        linhas = ByteBuffer.wrap(texto.toString().getBytes(StandardCharsets.US_ASCII));
+    }
+
+    @Benchmark
+    public int[] somarEscalar() {
+        for (int i = 0; i < tamanho; i++) {
+            destino[i] = calc.somar(a[i], b[i]);
+        }
+        return destino;
+    }
+
+    @Benchmark
+    public int[] somarLote() {
+        calc.somar(a, b, destino);
+        return destino;
+    }
+
+    @Benchmark
+    public int[] somarExatoLote() {
+        calc.somarExato(a, b, destino);
+        return destino;
+    }
+
+    @Benchmark
+    public int[] subtrairLote() {
+        calc.subtrair(a, b, destino);
+        return destino;
+    }
+
+    @Benchmark
+    public int[] divideEscalar() throws NaoPodeDividirPorZeroException {
+        for (int i = 0; i < tamanho; i++) {
+            destino[i] = calc.divide(a[i], b[i]);
+        }
+        return destino;
+    }
+
+    @Benchmark
+    public int[] divideLote() {
+        return calc.divide(a, b, destino);
+    }
+
+    @Benchmark
+    public int somarTodosEscalar() {
+        int soma = 0;
+        for (int i = 0; i < tamanho; i++) {
+            soma = calc.somar(soma, a[i]);
+        }
+        return soma;
+    }
+
+    @Benchmark
+    public long somarTodosLote() {
+        return calc.somar(a);
+    }
+
+    @Benchmark
+    public long somarExatoLongos() {
+        return calc.somarExato(longos);
+    }
+
+    @Benchmark
+    public int divideTexto() {
+        return calc.divide("840000", "12", resultado).getValor();
+    }
+
+    @Benchmark
+    public int divideString() {
+        return calc.divide("840000", "12");
+    }
+
+    @Benchmark
+    public int dividirLinhas() {
+        int[] soma = new int[1];
+        calc.dividirLinhas(linhas, ';', (linha, status, valor) -> soma[0] += valor);
+        return soma[0];
+    }
+
+    @Benchmark
+    public int dividirLinhasComParseInt() {
+        int soma = 0;
+        String[] partes = new String(linhas.array(), StandardCharsets.US_ASCII).split("\n");
+        for (String parte : partes) {
+            int separador = parte.indexOf(';');
+            try {
+                soma += calc.divide(parte.substring(0, separador), parte.substring(separador + 1));
+            } catch (NumberFormatException e) {
+                // linha invalida
+            }
+        }
+        return soma;
+    }
+}
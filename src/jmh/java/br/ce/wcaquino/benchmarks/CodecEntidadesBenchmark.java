@@ -0,0 +1,86 @@
+package br.ce.wcaquino.benchmarks;
+
+import br.ce.wcaquino.codec.CodecEntidades;
+import br.ce.wcaquino.entidades.Filme;
+import br.ce.wcaquino.entidades.Locacao;
+import br.ce.wcaquino.entidades.Usuario;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+import static br.ce.wcaquino.utils.DataUtils.obterDataComDiferencaDias;
+
+/**
+ * Vazao de codificacao/decodificacao de uma locacao. Com {@code dicionario=true} o
+ * dicionario de textos ja conhece os nomes, como acontece a partir do segundo registro
+ * de um segmento.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CodecEntidadesBenchmark {
+
+    @Param({"1", "6"})
+    private int quantidadeFilmes;
+
+    @Param({"false", "true"})
+    private boolean dicionario;
+
+    private final CodecEntidades escrita = new CodecEntidades();
+    private final CodecEntidades leitura = new CodecEntidades();
+    private final ByteBuffer buffer = ByteBuffer.allocateDirect(4096);
+    private Locacao locacao;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        List<Filme> filmes = new ArrayList<>();
+        for (int i = 0; i < quantidadeFilmes; i++) {
+            filmes.add(new Filme("Filme " + i, 2, 4.0));
+        }
+        locacao = new Locacao(new Usuario("Usuario 1"), filmes, new Date(), obterDataComDiferencaDias(1), 19.5);
+        locacao.setId(12345L);
+
+        if (dicionario) {
+            escrita.codificar(locacao, buffer);
+            buffer.flip();
+            leitura.decodificarLocacao(buffer);
+        }
+        buffer.clear();
+        escrita.codificar(locacao, buffer);
+        buffer.flip();
+    }
+
+    @Benchmark
+    public ByteBuffer codificar() {
+        if (!dicionario) {
+            escrita.reiniciarDicionario();
+        }
+        buffer.clear();
+        escrita.codificar(locacao, buffer);
+        return buffer;
+    }
+
+    @Benchmark
+    public Locacao decodificar() {
+        if (!dicionario) {
+            leitura.reiniciarDicionario();
+        }
+        buffer.rewind();
+        return leitura.decodificarLocacao(buffer);
+    }
+}
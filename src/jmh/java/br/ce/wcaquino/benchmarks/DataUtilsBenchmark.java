@@ -0,0 +1,74 @@
+package br.ce.wcaquino.benchmarks;
+
+import br.ce.wcaquino.utils.DataUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.ZoneId;
+import java.util.Calendar;
+import java.util.Date;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DataUtilsBenchmark {
+
+    private Date data1;
+    private Date data2;
+    private long epochMilli;
+    private long epochDay;
+    private ZoneId fuso;
+
+    @Setup
+    public void setup() {
+        data1 = new Date();
+        data2 = DataUtils.obterDataComDiferencaDias(1);
+        epochMilli = data1.getTime();
+        fuso = ZoneId.systemDefault();
+        epochDay = DataUtils.epochDay(epochMilli, fuso);
+    }
+
+    @Benchmark
+    public Date adicionarDias() {
+        return DataUtils.adicionarDias(data1, 1);
+    }
+
+    @Benchmark
+    public boolean isMesmaData() {
+        return DataUtils.isMesmaData(data1, data2);
+    }
+
+    @Benchmark
+    public boolean verificarDiaSemana() {
+        return DataUtils.verificarDiaSemana(data1, Calendar.SUNDAY);
+    }
+
+    @Benchmark
+    public Date obterData() {
+        return DataUtils.obterData(18, 10, 2026);
+    }
+
+    @Benchmark
+    public long adicionarDiasEpochMilli() {
+        return DataUtils.adicionarDiasMilis(epochMilli, 1, fuso);
+    }
+
+    @Benchmark
+    public boolean verificarDiaSemanaEpochDay() {
+        return DataUtils.verificarDiaSemana(epochDay, Calendar.SUNDAY);
+    }
+
+    @Benchmark
+    public long obterEpochDay() {
+        return DataUtils.obterEpochDay(18, 10, 2026);
+    }
+}
@@ -0,0 +1,18 @@
+package br.ce.wcaquino.benchmarks;
+
+import br.ce.wcaquino.entidades.Usuario;
+import br.ce.wcaquino.servicos.EmailService;
+
+public class EmailServiceStub implements EmailService {
+
+    private long enviados;
+
+    @Override
+    public void notificarAtraso(Usuario usuario) {
+        enviados++;
+    }
+
+    public long getEnviados() {
+        return enviados;
+    }
+}
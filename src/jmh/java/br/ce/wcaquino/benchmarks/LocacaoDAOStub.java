@@ -0,0 +1,42 @@
+package br.ce.wcaquino.benchmarks;
+
+import br.ce.wcaquino.daos.LocacaoDAO;
+import br.ce.wcaquino.entidades.Locacao;
+import br.ce.wcaquino.entidades.Prorrogacao;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class LocacaoDAOStub implements LocacaoDAO {
+
+    private final List<Locacao> pendentes;
+
+    public LocacaoDAOStub() {
+        this(new ArrayList<>());
+    }
+
+    public LocacaoDAOStub(List<Locacao> pendentes) {
+        this.pendentes = pendentes;
+    }
+
+    @Override
+    public void salvar(Locacao locacao) {
+        // descarta: o benchmark mede apenas o servico
+    }
+
+    @Override
+    public List<Prorrogacao> registrarProrrogacoes(List<Prorrogacao> prorrogacoes) {
+        List<Prorrogacao> aplicadas = new ArrayList<>(prorrogacoes.size());
+        for (Prorrogacao prorrogacao : prorrogacoes) {
+            if (prorrogacao.aplicar(prorrogacao.getLocacao())) {
+                aplicadas.add(prorrogacao);
+            }
+        }
+        return aplicadas;
+    }
+
+    @Override
+    public List<Locacao> obterLocacoesPendentes() {
+        return pendentes;
+    }
+}
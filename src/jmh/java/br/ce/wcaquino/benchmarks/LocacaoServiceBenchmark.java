@@ -0,0 +1,81 @@
+package br.ce.wcaquino.benchmarks;
+
+import br.ce.wcaquino.entidades.Filme;
+import br.ce.wcaquino.entidades.Locacao;
+import br.ce.wcaquino.entidades.Usuario;
+import br.ce.wcaquino.servicos.LocacaoService;
+import br.ce.wcaquino.servicos.ResultadoAluguel;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+import static br.ce.wcaquino.utils.DataUtils.obterDataComDiferencaDias;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class LocacaoServiceBenchmark {
+
+    @Param({"1", "2", "3", "4", "5", "6"})
+    private int tamanhoCarrinho;
+
+    private LocacaoService service;
+    private Usuario usuario;
+    private List<Filme> filmes;
+    private List<Filme> semEstoque;
+    private Locacao locacao;
+
+    @Setup
+    public void setup() {
+        service = new LocacaoService(new LocacaoDAOStub(), new SPCServiceStub(), new EmailServiceStub());
+        usuario = new Usuario("Usuario 1");
+
+        filmes = new ArrayList<>();
+        for (int i = 0; i < tamanhoCarrinho; i++) {
+            filmes.add(new Filme("Filme " + i, 2, 4.0));
+        }
+
+        semEstoque = new ArrayList<>(filmes);
+        semEstoque.set(tamanhoCarrinho - 1, new Filme("Esgotado", 0, 4.0));
+
+        locacao = new Locacao(usuario, filmes, new Date(), obterDataComDiferencaDias(1), 4.0 * tamanhoCarrinho);
+    }
+
+    @Benchmark
+    public Locacao alugarFilme() throws Exception {
+        return service.alugarFilme(usuario, filmes);
+    }
+
+    @Benchmark
+    public ResultadoAluguel tentarAlugarFilmeSemEstoque() {
+        return service.tentarAlugarFilme(usuario, semEstoque);
+    }
+
+    @Benchmark
+    public Exception alugarFilmeSemEstoque() {
+        try {
+            service.alugarFilme(usuario, semEstoque);
+            return null;
+        } catch (Exception e) {
+            return e;
+        }
+    }
+
+    @Benchmark
+    public void prorrogarLocacao() {
+        service.prorrogarLocacao(locacao, 3);
+    }
+}
@@ -0,0 +1,79 @@
+package br.ce.wcaquino.benchmarks;
+
+import br.ce.wcaquino.daos.LocacaoDAO;
+import br.ce.wcaquino.daos.LocacaoDAOMemoria;
+import br.ce.wcaquino.entidades.Filme;
+import br.ce.wcaquino.entidades.Locacao;
+import br.ce.wcaquino.entidades.Usuario;
+import br.ce.wcaquino.servicos.LocacaoService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static br.ce.wcaquino.utils.DataUtils.obterDataComDiferencaDias;
+
+/**
+ * Varredura de atrasos sobre N locacoes pendentes, metade delas atrasada.
+ * O cenario de 10M exige heap grande (-Xmx8g ou mais).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 3)
+@Fork(value = 1, jvmArgsAppend = "-Xmx12g")
+public class NotificarAtrasosBenchmark {
+
+    @Param({"10000", "1000000", "10000000"})
+    private int quantidade;
+
+    @Param({"lista", "indice"})
+    private String dao;
+
+    private LocacaoService service;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        Usuario usuario = new Usuario("Usuario 1");
+        List<Filme> filmes = Collections.singletonList(new Filme("Filme 1", 2, 4.0));
+        Date dataLocacao = obterDataComDiferencaDias(-4);
+        Date atrasada = obterDataComDiferencaDias(-2);
+        Date emDia = obterDataComDiferencaDias(2);
+
+        List<Locacao> pendentes = new ArrayList<>(quantidade);
+        for (int i = 0; i < quantidade; i++) {
+            pendentes.add(new Locacao(usuario, filmes, dataLocacao, i % 2 == 0 ? atrasada : emDia, 4.0));
+        }
+
+        LocacaoDAO locacaoDAO;
+        if (dao.equals("indice")) {
+            LocacaoDAOMemoria indice = new LocacaoDAOMemoria();
+            pendentes.forEach(indice::salvar);
+            locacaoDAO = indice;
+        } else {
+            locacaoDAO = new LocacaoDAOStub(pendentes);
+        }
+
+        service = new LocacaoService(locacaoDAO, new SPCServiceStub(), new EmailServiceStub());
+    }
+
+    @Benchmark
+    public void notificarAtrasos() {
+        service.notificarAtrasos();
+    }
+}
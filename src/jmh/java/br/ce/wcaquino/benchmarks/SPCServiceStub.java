@@ -0,0 +1,12 @@
+package br.ce.wcaquino.benchmarks;
+
+import br.ce.wcaquino.entidades.Usuario;
+import br.ce.wcaquino.servicos.SPCService;
+
+public class SPCServiceStub implements SPCService {
+
+    @Override
+    public boolean pussuiNegativacao(Usuario usuario) {
+        return false;
+    }
+}
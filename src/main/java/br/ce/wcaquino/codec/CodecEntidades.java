@@ -0,0 +1,388 @@
+package br.ce.wcaquino.codec;
+
+import br.ce.wcaquino.entidades.Filme;
+import br.ce.wcaquino.entidades.Locacao;
+import br.ce.wcaquino.entidades.Prorrogacao;
+import br.ce.wcaquino.entidades.RegistroEntidades;
+import br.ce.wcaquino.entidades.Usuario;
+
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Codificacao binaria compacta de {@link Locacao}, {@link Filme} e {@link Usuario}.
+ * <p>
+ * Inteiros usam varint (zigzag para valores com sinal), datas sao gravadas como epoch-day
+ * (UTC) mais os milissegundos do dia, precos exatos em centavos viram varint e os textos
+ * entram em um dicionario: a primeira ocorrencia grava o texto e as seguintes apenas o
+ * indice. O dicionario e compartilhado entre leitura e escrita, entao uma sequencia de
+ * registros deve ser lida na mesma ordem em que foi gravada, a partir de um dicionario
+ * no mesmo estado ({@link #reiniciarDicionario()}).
+ * <p>
+ * A leitura trabalha direto sobre o {@link ByteBuffer} (inclusive mapeado em memoria),
+ * sem copiar o registro para um array intermediario. Com um {@link RegistroEntidades},
+ * usuarios e filmes decodificados sao trocados pelas instancias canonicas.
+ */
+public class CodecEntidades {
+
+    private static final long MILIS_POR_DIA = 86_400_000L;
+
+    private static final int LOCACAO_ID = 1;
+    private static final int LOCACAO_USUARIO = 1 << 1;
+    private static final int LOCACAO_FILMES = 1 << 2;
+    private static final int LOCACAO_DATA_LOCACAO = 1 << 3;
+    private static final int LOCACAO_DATA_RETORNO = 1 << 4;
+    private static final int LOCACAO_VALOR_CENTAVOS = 1 << 5;
+    private static final int LOCACAO_IDS_FILMES = 1 << 6;
+    private static final int LOCACAO_VERSAO = 1 << 7;
+
+    private static final int FILME_ESTOQUE = 1;
+    private static final int FILME_PRECO_CENTAVOS = 1 << 1;
+
+    private static final int PRORROGACAO_VALOR_CENTAVOS = 1;
+
+    private static final int TEXTO_NULO = 0;
+    private static final int TEXTO_NOVO = 1;
+    private static final int PRIMEIRA_REFERENCIA = 2;
+
+    private final List<String> textos = new ArrayList<>();
+    private final Map<String, Integer> indices = new HashMap<>();
+    private final RegistroEntidades registro;
+
+    public CodecEntidades() {
+        this(null);
+    }
+
+    public CodecEntidades(RegistroEntidades registro) {
+        this.registro = registro;
+    }
+
+    public void reiniciarDicionario() {
+        textos.clear();
+        indices.clear();
+    }
+
+    public int tamanhoDicionario() {
+        return textos.size();
+    }
+
+    /**
+     * Grava a locacao a partir da posicao atual do buffer. Se faltar espaco, lanca
+     * {@link BufferOverflowException} e desfaz as entradas novas no dicionario; o
+     * conteudo parcialmente escrito no buffer deve ser descartado pelo chamador.
+     */
+    public void codificar(Locacao locacao, ByteBuffer destino) {
+        int marca = textos.size();
+        try {
+            escreverLocacao(locacao, destino);
+        } catch (BufferOverflowException e) {
+            desfazerDicionario(marca);
+            throw e;
+        }
+    }
+
+    public void codificar(Filme filme, ByteBuffer destino) {
+        int marca = textos.size();
+        try {
+            escreverFilme(filme, destino);
+        } catch (BufferOverflowException e) {
+            desfazerDicionario(marca);
+            throw e;
+        }
+    }
+
+    public void codificar(Usuario usuario, ByteBuffer destino) {
+        int marca = textos.size();
+        try {
+            escreverTexto(usuario == null ? null : usuario.getNome(), destino);
+        } catch (BufferOverflowException e) {
+            desfazerDicionario(marca);
+            throw e;
+        }
+    }
+
+    /**
+     * Grava apenas o id da locacao, a versao, a nova data de retorno e o valor.
+     */
+    public void codificar(Prorrogacao prorrogacao, ByteBuffer destino) {
+        destino.put((byte) (emCentavos(prorrogacao.getValor()) ? PRORROGACAO_VALOR_CENTAVOS : 0));
+        escreverVarLong(prorrogacao.getLocacao().getId(), destino);
+        escreverVarInt(prorrogacao.getVersao(), destino);
+        escreverData(prorrogacao.getDataRetorno(), destino);
+        escreverPreco(prorrogacao.getValor(), destino);
+    }
+
+    /**
+     * @return Prorrogacao cuja locacao traz apenas o id
+     */
+    public Prorrogacao decodificarProrrogacao(ByteBuffer origem) {
+        int flags = origem.get() & 0xFF;
+        Locacao locacao = new Locacao();
+        locacao.setId(lerVarLong(origem));
+        int versao = lerVarInt(origem);
+        Date dataRetorno = lerData(origem);
+        return new Prorrogacao(locacao, versao, dataRetorno, lerPreco(origem, (flags & PRORROGACAO_VALOR_CENTAVOS) != 0));
+    }
+
+    public Locacao decodificarLocacao(ByteBuffer origem) {
+        int flags = origem.get() & 0xFF;
+        Locacao locacao = new Locacao();
+
+        if ((flags & LOCACAO_ID) != 0) {
+            locacao.setId(lerVarLong(origem));
+        }
+        if ((flags & LOCACAO_USUARIO) != 0) {
+            locacao.setUsuario(decodificarUsuario(origem));
+        }
+        if ((flags & LOCACAO_FILMES) != 0) {
+            int quantidade = lerVarInt(origem);
+            List<Filme> filmes = new ArrayList<>(quantidade);
+            for (int i = 0; i < quantidade; i++) {
+                filmes.add(decodificarFilme(origem));
+            }
+            locacao.setFilmes(filmes);
+        }
+        if ((flags & LOCACAO_DATA_LOCACAO) != 0) {
+            locacao.setDataLocacao(lerData(origem));
+        }
+        if ((flags & LOCACAO_DATA_RETORNO) != 0) {
+            locacao.setDataRetorno(lerData(origem));
+        }
+        locacao.setValor(lerPreco(origem, (flags & LOCACAO_VALOR_CENTAVOS) != 0));
+        if ((flags & LOCACAO_IDS_FILMES) != 0) {
+            int[] ids = new int[lerVarInt(origem)];
+            for (int i = 0; i < ids.length; i++) {
+                ids[i] = lerVarInt(origem);
+            }
+            locacao.setIdsFilmes(ids);
+        }
+        if ((flags & LOCACAO_VERSAO) != 0) {
+            locacao.setVersao(lerVarInt(origem));
+            locacao.setValorProrrogacoes(origem.getDouble());
+        }
+
+        return locacao;
+    }
+
+    public Filme decodificarFilme(ByteBuffer origem) {
+        int flags = origem.get() & 0xFF;
+        Filme filme = new Filme();
+        filme.setNome(lerTexto(origem));
+        if ((flags & FILME_ESTOQUE) != 0) {
+            filme.setEstoque(decodificarZigZag(lerVarInt(origem)));
+        }
+        filme.setPrecoLocacao(lerPreco(origem, (flags & FILME_PRECO_CENTAVOS) != 0));
+        return registro == null ? filme : registro.canonizar(filme);
+    }
+
+    public Usuario decodificarUsuario(ByteBuffer origem) {
+        String nome = lerTexto(origem);
+        if (nome == null) {
+            return null;
+        }
+        Usuario usuario = new Usuario(nome);
+        return registro == null ? usuario : registro.canonizar(usuario);
+    }
+
+    private void escreverLocacao(Locacao locacao, ByteBuffer destino) {
+        int flags = 0;
+        if (locacao.getId() != null) flags |= LOCACAO_ID;
+        if (locacao.getUsuario() != null) flags |= LOCACAO_USUARIO;
+        if (locacao.getFilmes() != null) flags |= LOCACAO_FILMES;
+        if (locacao.getDataLocacao() != null) flags |= LOCACAO_DATA_LOCACAO;
+        if (locacao.getDataRetorno() != null) flags |= LOCACAO_DATA_RETORNO;
+        if (emCentavos(locacao.getValor())) flags |= LOCACAO_VALOR_CENTAVOS;
+        if (locacao.getIdsFilmes() != null) flags |= LOCACAO_IDS_FILMES;
+        if (locacao.getVersao() != 0) flags |= LOCACAO_VERSAO;
+        destino.put((byte) flags);
+
+        if (locacao.getId() != null) {
+            escreverVarLong(locacao.getId(), destino);
+        }
+        if (locacao.getUsuario() != null) {
+            escreverTexto(locacao.getUsuario().getNome(), destino);
+        }
+        if (locacao.getFilmes() != null) {
+            List<Filme> filmes = locacao.getFilmes();
+            escreverVarInt(filmes.size(), destino);
+            for (int i = 0; i < filmes.size(); i++) {
+                escreverFilme(filmes.get(i), destino);
+            }
+        }
+        if (locacao.getDataLocacao() != null) {
+            escreverData(locacao.getDataLocacao(), destino);
+        }
+        if (locacao.getDataRetorno() != null) {
+            escreverData(locacao.getDataRetorno(), destino);
+        }
+        escreverPreco(locacao.getValor(), destino);
+        if (locacao.getIdsFilmes() != null) {
+            int[] ids = locacao.getIdsFilmes();
+            escreverVarInt(ids.length, destino);
+            for (int id : ids) {
+                escreverVarInt(id, destino);
+            }
+        }
+        if (locacao.getVersao() != 0) {
+            // nao ha bit livre para o formato do valor; so locacoes prorrogadas pagam os 8 bytes
+            escreverVarInt(locacao.getVersao(), destino);
+            destino.putDouble(locacao.getValorProrrogacoes());
+        }
+    }
+
+    private void escreverFilme(Filme filme, ByteBuffer destino) {
+        int flags = 0;
+        if (filme.getEstoque() != null) flags |= FILME_ESTOQUE;
+        if (emCentavos(filme.getPrecoLocacao())) flags |= FILME_PRECO_CENTAVOS;
+        destino.put((byte) flags);
+
+        escreverTexto(filme.getNome(), destino);
+        if (filme.getEstoque() != null) {
+            escreverVarInt(codificarZigZag(filme.getEstoque()), destino);
+        }
+        escreverPreco(filme.getPrecoLocacao(), destino);
+    }
+
+    private void escreverTexto(String texto, ByteBuffer destino) {
+        if (texto == null) {
+            escreverVarInt(TEXTO_NULO, destino);
+            return;
+        }
+
+        Integer indice = indices.get(texto);
+        if (indice != null) {
+            escreverVarInt(PRIMEIRA_REFERENCIA + indice, destino);
+            return;
+        }
+
+        byte[] bytes = texto.getBytes(StandardCharsets.UTF_8);
+        escreverVarInt(TEXTO_NOVO, destino);
+        escreverVarInt(bytes.length, destino);
+        destino.put(bytes);
+        registrarTexto(texto);
+    }
+
+    private String lerTexto(ByteBuffer origem) {
+        int referencia = lerVarInt(origem);
+        if (referencia == TEXTO_NULO) {
+            return null;
+        }
+        if (referencia >= PRIMEIRA_REFERENCIA) {
+            return textos.get(referencia - PRIMEIRA_REFERENCIA);
+        }
+
+        int tamanho = lerVarInt(origem);
+        String texto;
+        if (origem.hasArray()) {
+            texto = new String(origem.array(), origem.arrayOffset() + origem.position(), tamanho, StandardCharsets.UTF_8);
+            origem.position(origem.position() + tamanho);
+        } else {
+            ByteBuffer bytes = origem.slice();
+            bytes.limit(tamanho);
+            texto = StandardCharsets.UTF_8.decode(bytes).toString();
+            origem.position(origem.position() + tamanho);
+        }
+        registrarTexto(texto);
+        return texto;
+    }
+
+    private void registrarTexto(String texto) {
+        indices.put(texto, textos.size());
+        textos.add(texto);
+    }
+
+    private void desfazerDicionario(int marca) {
+        while (textos.size() > marca) {
+            indices.remove(textos.remove(textos.size() - 1));
+        }
+    }
+
+    private static void escreverData(Date data, ByteBuffer destino) {
+        long millis = data.getTime();
+        escreverVarLong(codificarZigZag(Math.floorDiv(millis, MILIS_POR_DIA)), destino);
+        escreverVarInt((int) Math.floorMod(millis, MILIS_POR_DIA), destino);
+    }
+
+    private static Date lerData(ByteBuffer origem) {
+        long epochDay = decodificarZigZag(lerVarLong(origem));
+        return new Date(epochDay * MILIS_POR_DIA + lerVarInt(origem));
+    }
+
+    private static boolean emCentavos(double valor) {
+        return Math.abs(valor) < 1e13 && Math.round(valor * 100) / 100.0 == valor;
+    }
+
+    private static void escreverPreco(double valor, ByteBuffer destino) {
+        if (emCentavos(valor)) {
+            escreverVarLong(codificarZigZag(Math.round(valor * 100)), destino);
+        } else {
+            destino.putDouble(valor);
+        }
+    }
+
+    private static double lerPreco(ByteBuffer origem, boolean emCentavos) {
+        return emCentavos ? decodificarZigZag(lerVarLong(origem)) / 100.0 : origem.getDouble();
+    }
+
+    static void escreverVarInt(int valor, ByteBuffer destino) {
+        while ((valor & ~0x7F) != 0) {
+            destino.put((byte) ((valor & 0x7F) | 0x80));
+            valor >>>= 7;
+        }
+        destino.put((byte) valor);
+    }
+
+    static int lerVarInt(ByteBuffer origem) {
+        int valor = 0;
+        for (int deslocamento = 0; deslocamento < 35; deslocamento += 7) {
+            byte b = origem.get();
+            valor |= (b & 0x7F) << deslocamento;
+            if (b >= 0) {
+                return valor;
+            }
+        }
+        throw new IllegalStateException("Varint invalido");
+    }
+
+    static void escreverVarLong(long valor, ByteBuffer destino) {
+        while ((valor & ~0x7FL) != 0) {
+            destino.put((byte) ((valor & 0x7F) | 0x80));
+            valor >>>= 7;
+        }
+        destino.put((byte) valor);
+    }
+
+    static long lerVarLong(ByteBuffer origem) {
+        long valor = 0;
+        for (int deslocamento = 0; deslocamento < 70; deslocamento += 7) {
+            byte b = origem.get();
+            valor |= (long) (b & 0x7F) << deslocamento;
+            if (b >= 0) {
+                return valor;
+            }
+        }
+        throw new IllegalStateException("Varint invalido");
+    }
+
+    private static int codificarZigZag(int valor) {
+        return (valor << 1) ^ (valor >> 31);
+    }
+
+    private static int decodificarZigZag(int valor) {
+        return (valor >>> 1) ^ -(valor & 1);
+    }
+
+    private static long codificarZigZag(long valor) {
+        return (valor << 1) ^ (valor >> 63);
+    }
+
+    private static long decodificarZigZag(long valor) {
+        return (valor >>> 1) ^ -(valor & 1);
+    }
+}
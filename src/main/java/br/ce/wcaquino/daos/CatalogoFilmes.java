@@ -0,0 +1,160 @@
+package br.ce.wcaquino.daos;
+
+import br.ce.wcaquino.entidades.Filme;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.Arrays;
+import java.util.function.IntConsumer;
+
+/**
+ * Catalogo de filmes em arrays paralelos de primitivos, indexados por um id {@code int}
+ * sequencial. Os nomes ficam concatenados em um unico {@code char[]}; estoque e preco
+ * (em centavos) ficam em {@code int[]}/{@code long[]}. Consultas e a iteracao nao criam
+ * objetos nem fazem boxing, e o estoque e reservado com CAS por elemento.
+ * <p>
+ * A capacidade e fixada na criacao. Inclusoes sao serializadas; leituras podem ocorrer
+ * em paralelo e enxergam todo filme cujo id ja foi retornado por {@link #adicionar}.
+ */
+public class CatalogoFilmes {
+
+    private static final VarHandle ESTOQUE = MethodHandles.arrayElementVarHandle(int[].class);
+
+    private final int[] inicioNome;
+    private final int[] tamanhoNome;
+    private final int[] estoque;
+    private final long[] precoCentavos;
+    private char[] nomes;
+    private int fimNomes;
+    private volatile int tamanho;
+
+    public CatalogoFilmes(int capacidade) {
+        this.inicioNome = new int[capacidade];
+        this.tamanhoNome = new int[capacidade];
+        this.estoque = new int[capacidade];
+        this.precoCentavos = new long[capacidade];
+        this.nomes = new char[Math.max(16, capacidade * 16)];
+    }
+
+    /**
+     * @return Id do filme incluido
+     */
+    public synchronized int adicionar(String nome, int quantidade, long preco) {
+        int id = tamanho;
+        if (id == estoque.length) {
+            throw new IllegalStateException("Catalogo cheio: " + id + " filmes");
+        }
+
+        if (fimNomes + nome.length() > nomes.length) {
+            nomes = Arrays.copyOf(nomes, Math.max(nomes.length * 2, fimNomes + nome.length()));
+        }
+        nome.getChars(0, nome.length(), nomes, fimNomes);
+        inicioNome[id] = fimNomes;
+        tamanhoNome[id] = nome.length();
+        fimNomes += nome.length();
+
+        estoque[id] = quantidade;
+        precoCentavos[id] = preco;
+        tamanho = id + 1;
+        return id;
+    }
+
+    public int tamanho() {
+        return tamanho;
+    }
+
+    public String nome(int id) {
+        verificar(id);
+        return new String(nomes, inicioNome[id], tamanhoNome[id]);
+    }
+
+    public void copiarNome(int id, StringBuilder destino) {
+        verificar(id);
+        destino.append(nomes, inicioNome[id], tamanhoNome[id]);
+    }
+
+    public boolean nomeIgual(int id, CharSequence nome) {
+        verificar(id);
+        int inicio = inicioNome[id];
+        if (tamanhoNome[id] != nome.length()) {
+            return false;
+        }
+        for (int i = 0; i < nome.length(); i++) {
+            if (nomes[inicio + i] != nome.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public int estoque(int id) {
+        verificar(id);
+        return (int) ESTOQUE.getVolatile(estoque, id);
+    }
+
+    public long precoCentavos(int id) {
+        verificar(id);
+        return precoCentavos[id];
+    }
+
+    public boolean reservar(int id, int quantidade) {
+        verificar(id);
+        while (true) {
+            int atual = (int) ESTOQUE.getVolatile(estoque, id);
+            if (atual < quantidade) {
+                return false;
+            }
+            if (ESTOQUE.compareAndSet(estoque, id, atual, atual - quantidade)) {
+                return true;
+            }
+        }
+    }
+
+    public void devolver(int id, int quantidade) {
+        verificar(id);
+        ESTOQUE.getAndAdd(estoque, id, quantidade);
+    }
+
+    /**
+     * Reserva uma copia de cada id; se algum nao tiver estoque, devolve as ja reservadas.
+     * Todos os ids sao verificados antes de reservar qualquer copia.
+     *
+     * @return Posicao do id sem estoque, ou -1 se todos foram reservados
+     * @throws IndexOutOfBoundsException se algum id nao existir; nada e reservado
+     */
+    public int reservarTodos(int[] ids) {
+        for (int id : ids) {
+            verificar(id);
+        }
+        for (int i = 0; i < ids.length; i++) {
+            if (!reservar(ids[i], 1)) {
+                devolverTodos(ids, i);
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    public void devolverTodos(int[] ids, int quantidade) {
+        for (int i = 0; i < quantidade; i++) {
+            devolver(ids[i], 1);
+        }
+    }
+
+    public void paraCada(IntConsumer acao) {
+        int total = tamanho;
+        for (int id = 0; id < total; id++) {
+            acao.accept(id);
+        }
+    }
+
+    public Filme paraFilme(int id) {
+        return new Filme(nome(id), estoque(id), precoCentavos(id) / 100.0);
+    }
+
+    private void verificar(int id) {
+        if (id < 0 || id >= tamanho) {
+            throw new IndexOutOfBoundsException("Filme inexistente: " + id);
+        }
+    }
+}
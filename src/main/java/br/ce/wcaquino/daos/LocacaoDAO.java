@@ -1,12 +1,47 @@
 package br.ce.wcaquino.daos;
 
 import br.ce.wcaquino.entidades.Locacao;
+import br.ce.wcaquino.entidades.Prorrogacao;
 
+import java.time.Instant;
 import java.util.List;
+import java.util.stream.Stream;
 
 public interface LocacaoDAO {
 
 	void salvar(Locacao locacao);
 
+	default void salvarTodos(List<Locacao> locacoes) {
+		locacoes.forEach(this::salvar);
+	}
+
     List<Locacao> obterLocacoesPendentes();
+
+    /**
+     * Registra as prorrogacoes como alteracoes das locacoes originais. Cada implementacao
+     * grava apenas a alteracao (id, versao, nova data e valor), nunca a locacao inteira de
+     * novo; por isso nao ha implementacao padrao sobre {@link #salvarTodos}.
+     *
+     * @return As prorrogacoes aplicadas; as de locacoes em outra versao ficam de fora
+     */
+    List<Prorrogacao> registrarProrrogacoes(List<Prorrogacao> prorrogacoes);
+
+    /**
+     * Percorre as locacoes pendentes sem materializa-las todas em memoria (ex.: cursor
+     * do banco). O stream deve ser fechado apos o uso; o padrao delega para
+     * {@link #obterLocacoesPendentes()}.
+     */
+    default Stream<Locacao> streamLocacoesPendentes() {
+        return obterLocacoesPendentes().stream();
+    }
+
+    /**
+     * Locacoes pendentes com data de retorno anterior a {@code agora}. Implementacoes
+     * indexadas por vencimento devem sobrescrever este metodo para nao percorrer as
+     * locacoes em dia; o padrao filtra {@link #streamLocacoesPendentes()}.
+     */
+    default Stream<Locacao> obterLocacoesAtrasadas(Instant agora) {
+        return streamLocacoesPendentes()
+                .filter(locacao -> locacao.getDataRetorno().toInstant().isBefore(agora));
+    }
 }
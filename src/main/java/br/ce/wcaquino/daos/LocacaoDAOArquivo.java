@@ -0,0 +1,406 @@
+package br.ce.wcaquino.daos;
+
+import br.ce.wcaquino.codec.CodecEntidades;
+import br.ce.wcaquino.entidades.Locacao;
+import br.ce.wcaquino.entidades.Prorrogacao;
+import br.ce.wcaquino.entidades.RegistroEntidades;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+/**
+ * {@link LocacaoDAO} persistido em um log append-only de segmentos mapeados em memoria.
+ * <p>
+ * Cada registro e gravado como {@code [tamanho][crc32][conteudo]}, com o conteudo no formato
+ * de {@link CodecEntidades} e um dicionario de textos por segmento; um tamanho zero marca
+ * o fim dos dados do segmento. Ao abrir, os segmentos sao lidos em ordem para reconstruir
+ * os indices em memoria, descartando um eventual registro incompleto no final; usuarios e
+ * filmes carregados sao as instancias canonicas do {@link RegistroEntidades} deste DAO. Quando
+ * o segmento atual enche, um novo e criado; {@link #compactar()} regrava apenas as locacoes
+ * ainda pendentes e remove os segmentos antigos.
+ * <p>
+ * Prorrogacoes sao gravadas como registros proprios, apenas com o id, a versao, a nova data e
+ * o valor cobrado, e aplicadas sobre a locacao na recuperacao; a compactacao as incorpora na
+ * locacao, inclusive o total cobrado.
+ */
+public class LocacaoDAOArquivo implements LocacaoDAO, AutoCloseable {
+
+    public static final int TAMANHO_SEGMENTO_PADRAO = 64 * 1024 * 1024;
+
+    private static final String PREFIXO = "segmento-";
+    private static final String SUFIXO = ".log";
+    private static final int CABECALHO = 8;
+    private static final byte LOCACAO = 1;
+    private static final byte DEVOLUCAO = 2;
+    private static final byte PRORROGACAO = 3;
+    private static final byte ULTIMO_ID = 4;
+
+    private final Path diretorio;
+    private final int tamanhoSegmento;
+    private final int gravacoesPorSincronizacao;
+
+    private final LocacaoDAOMemoria pendentes = new LocacaoDAOMemoria();
+    private final Map<Long, Locacao> pendentesPorId = new ConcurrentHashMap<>();
+    private long ultimoId;
+
+    private long numeroSegmento;
+    private FileChannel canal;
+    private MappedByteBuffer segmento;
+    private int gravacoesNaoSincronizadas;
+
+    private final CodecEntidades codec = new CodecEntidades(new RegistroEntidades());
+    private ByteBuffer rascunho = ByteBuffer.allocate(4 * 1024);
+
+    public LocacaoDAOArquivo(Path diretorio) throws IOException {
+        this(diretorio, TAMANHO_SEGMENTO_PADRAO, 1);
+    }
+
+    /**
+     * @param diretorio                 Diretorio dos segmentos
+     * @param tamanhoSegmento           Tamanho, em bytes, de cada segmento
+     * @param gravacoesPorSincronizacao Quantidade de gravacoes entre cada fsync: 1 sincroniza
+     *                                  toda gravacao e 0 deixa a sincronizacao a cargo do
+     *                                  sistema operacional
+     */
+    public LocacaoDAOArquivo(Path diretorio, int tamanhoSegmento, int gravacoesPorSincronizacao) throws IOException {
+        if (tamanhoSegmento <= CABECALHO) {
+            throw new IllegalArgumentException("Tamanho de segmento invalido: " + tamanhoSegmento);
+        }
+        this.diretorio = Files.createDirectories(diretorio);
+        this.tamanhoSegmento = tamanhoSegmento;
+        this.gravacoesPorSincronizacao = gravacoesPorSincronizacao;
+        recuperar();
+    }
+
+    @Override
+    public synchronized void salvar(Locacao locacao) {
+        if (locacao.getId() == null) {
+            locacao.setId(++ultimoId);
+        }
+        try {
+            anexarLocacao(locacao);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        sincronizarSeNecessario();
+        indexar(locacao);
+    }
+
+    /**
+     * Grava o lote inteiro com uma unica sincronizacao ao final.
+     */
+    @Override
+    public synchronized void salvarTodos(List<Locacao> locacoes) {
+        try {
+            for (Locacao locacao : locacoes) {
+                if (locacao.getId() == null) {
+                    locacao.setId(++ultimoId);
+                }
+                anexarLocacao(locacao);
+                indexar(locacao);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        sincronizarSeNecessario();
+    }
+
+    /**
+     * Registra a devolucao, retirando a locacao das pendentes.
+     *
+     * @return <code>true</code> caso a locacao estivesse pendente
+     */
+    public synchronized boolean registrarDevolucao(Locacao locacao) {
+        Locacao pendente = locacao.getId() == null ? null : pendentesPorId.get(locacao.getId());
+        if (pendente == null) {
+            return false;
+        }
+        ByteBuffer registro = ByteBuffer.allocate(1 + Long.BYTES).put(DEVOLUCAO).putLong(locacao.getId());
+        try {
+            anexar(registro.flip());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        sincronizarSeNecessario();
+        desindexar(pendente.getId());
+        return true;
+    }
+
+    /**
+     * Grava as prorrogacoes de locacoes pendentes com uma unica sincronizacao; as de locacoes
+     * ja devolvidas ou em outra versao sao ignoradas.
+     */
+    @Override
+    public synchronized List<Prorrogacao> registrarProrrogacoes(List<Prorrogacao> prorrogacoes) {
+        List<Prorrogacao> aplicadas = new ArrayList<>(prorrogacoes.size());
+        try {
+            for (Prorrogacao prorrogacao : prorrogacoes) {
+                Long id = prorrogacao.getLocacao().getId();
+                Locacao pendente = id == null ? null : pendentesPorId.get(id);
+                if (pendente == null || pendente.getVersao() != prorrogacao.getVersao() - 1) {
+                    continue;
+                }
+                anexar(codificarProrrogacao(prorrogacao));
+                prorrogar(pendente, prorrogacao);
+                if (prorrogacao.getLocacao() != pendente) {
+                    prorrogacao.aplicar(prorrogacao.getLocacao());
+                }
+                aplicadas.add(prorrogacao);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        sincronizarSeNecessario();
+        return aplicadas;
+    }
+
+    @Override
+    public List<Locacao> obterLocacoesPendentes() {
+        return pendentes.obterLocacoesPendentes();
+    }
+
+    @Override
+    public Stream<Locacao> streamLocacoesPendentes() {
+        return pendentes.streamLocacoesPendentes();
+    }
+
+    @Override
+    public Stream<Locacao> obterLocacoesAtrasadas(Instant agora) {
+        return pendentes.obterLocacoesAtrasadas(agora);
+    }
+
+    /**
+     * Regrava as locacoes pendentes em segmentos novos e apaga os anteriores. Se o processo
+     * cair no meio da compactacao, os segmentos antigos continuam validos e a recuperacao
+     * apenas reaplica registros repetidos. O maior id ja usado e gravado no inicio do novo
+     * segmento, para que os ids nao recomecem quando nenhuma locacao estiver pendente.
+     */
+    public synchronized void compactar() throws IOException {
+        List<Path> antigos = listarSegmentos();
+        rolar();
+        anexar(ByteBuffer.allocate(1 + Long.BYTES).put(ULTIMO_ID).putLong(ultimoId).flip());
+        for (Locacao locacao : pendentesPorId.values()) {
+            anexarLocacao(locacao);
+        }
+        segmento.force();
+        gravacoesNaoSincronizadas = 0;
+        for (Path antigo : antigos) {
+            Files.delete(antigo);
+        }
+    }
+
+    public synchronized void sincronizar() {
+        segmento.force();
+        gravacoesNaoSincronizadas = 0;
+    }
+
+    public synchronized int quantidadeSegmentos() throws IOException {
+        return listarSegmentos().size();
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        segmento.force();
+        canal.close();
+    }
+
+    private void recuperar() throws IOException {
+        List<Path> arquivos = listarSegmentos();
+        if (arquivos.isEmpty()) {
+            abrirSegmento(1);
+            return;
+        }
+
+        for (int i = 0; i < arquivos.size(); i++) {
+            Path arquivo = arquivos.get(i);
+            FileChannel canalSegmento = FileChannel.open(arquivo, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            MappedByteBuffer dados = canalSegmento.map(FileChannel.MapMode.READ_WRITE, 0, canalSegmento.size());
+            codec.reiniciarDicionario();
+            lerSegmento(dados);
+
+            if (i == arquivos.size() - 1) {
+                numeroSegmento = numeroDoSegmento(arquivo);
+                canal = canalSegmento;
+                segmento = dados;
+            } else {
+                canalSegmento.close();
+            }
+        }
+    }
+
+    private void lerSegmento(ByteBuffer dados) {
+        CRC32 crc = new CRC32();
+        while (dados.remaining() >= CABECALHO) {
+            int inicio = dados.position();
+            int tamanho = dados.getInt();
+            int verificador = dados.getInt();
+            if (tamanho <= 0 || tamanho > dados.remaining()) {
+                dados.position(inicio);
+                return;
+            }
+
+            ByteBuffer registro = dados.slice();
+            registro.limit(tamanho);
+            crc.reset();
+            crc.update(registro.duplicate());
+            if ((int) crc.getValue() != verificador) {
+                dados.position(inicio);
+                return;
+            }
+
+            aplicar(registro);
+            dados.position(dados.position() + tamanho);
+        }
+    }
+
+    private void aplicar(ByteBuffer registro) {
+        byte tipo = registro.get();
+        if (tipo == LOCACAO) {
+            Locacao locacao = codec.decodificarLocacao(registro);
+            ultimoId = Math.max(ultimoId, locacao.getId());
+            indexar(locacao);
+        } else if (tipo == DEVOLUCAO) {
+            desindexar(registro.getLong());
+        } else if (tipo == ULTIMO_ID) {
+            ultimoId = Math.max(ultimoId, registro.getLong());
+        } else if (tipo == PRORROGACAO) {
+            Prorrogacao prorrogacao = codec.decodificarProrrogacao(registro);
+            Locacao pendente = pendentesPorId.get(prorrogacao.getLocacao().getId());
+            if (pendente != null) {
+                prorrogar(pendente, prorrogacao);
+            }
+        }
+    }
+
+    private void prorrogar(Locacao pendente, Prorrogacao prorrogacao) {
+        // o indice por vencimento precisa ver a data antiga para remover a locacao
+        pendentes.registrarDevolucao(pendente);
+        prorrogacao.aplicar(pendente);
+        pendentes.salvar(pendente);
+    }
+
+    private void indexar(Locacao locacao) {
+        Locacao anterior = pendentesPorId.put(locacao.getId(), locacao);
+        if (anterior != null && anterior != locacao) {
+            pendentes.registrarDevolucao(anterior);
+        }
+        if (anterior != locacao) {
+            pendentes.salvar(locacao);
+        }
+    }
+
+    private void desindexar(long id) {
+        Locacao anterior = pendentesPorId.remove(id);
+        if (anterior != null) {
+            pendentes.registrarDevolucao(anterior);
+        }
+    }
+
+    private void sincronizarSeNecessario() {
+        if (gravacoesPorSincronizacao > 0 && gravacoesNaoSincronizadas >= gravacoesPorSincronizacao) {
+            sincronizar();
+        }
+    }
+
+    private void anexar(ByteBuffer registro) throws IOException {
+        int tamanho = registro.remaining();
+        if (CABECALHO + tamanho > tamanhoSegmento) {
+            throw new IllegalArgumentException("Registro maior que o segmento: " + tamanho + " bytes");
+        }
+        if (segmento.remaining() < CABECALHO + tamanho) {
+            rolar();
+        }
+
+        CRC32 crc = new CRC32();
+        crc.update(registro.duplicate());
+        segmento.putInt(tamanho).putInt((int) crc.getValue()).put(registro);
+        if (segmento.remaining() >= Integer.BYTES) {
+            segmento.putInt(segmento.position(), 0);
+        }
+        gravacoesNaoSincronizadas++;
+    }
+
+    private void rolar() throws IOException {
+        segmento.force();
+        canal.close();
+        abrirSegmento(numeroSegmento + 1);
+    }
+
+    private void abrirSegmento(long numero) throws IOException {
+        Path arquivo = diretorio.resolve(String.format("%s%010d%s", PREFIXO, numero, SUFIXO));
+        numeroSegmento = numero;
+        codec.reiniciarDicionario();
+        canal = FileChannel.open(arquivo, StandardOpenOption.CREATE_NEW, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        segmento = canal.map(FileChannel.MapMode.READ_WRITE, 0, tamanhoSegmento);
+    }
+
+    private List<Path> listarSegmentos() throws IOException {
+        try (Stream<Path> arquivos = Files.list(diretorio)) {
+            return arquivos
+                    .filter(arquivo -> {
+                        String nome = arquivo.getFileName().toString();
+                        return nome.startsWith(PREFIXO) && nome.endsWith(SUFIXO);
+                    })
+                    .sorted()
+                    .collect(Collectors.toList());
+        }
+    }
+
+    private static long numeroDoSegmento(Path arquivo) {
+        String nome = arquivo.getFileName().toString();
+        return Long.parseLong(nome.substring(PREFIXO.length(), nome.length() - SUFIXO.length()));
+    }
+
+    private void anexarLocacao(Locacao locacao) throws IOException {
+        ByteBuffer registro = codificarLocacao(locacao);
+        if (segmento.remaining() < CABECALHO + registro.remaining()) {
+            // o segmento novo comeca com o dicionario vazio
+            rolar();
+            registro = codificarLocacao(locacao);
+        }
+        anexar(registro);
+    }
+
+    private ByteBuffer codificarProrrogacao(Prorrogacao prorrogacao) {
+        rascunho.clear().put(PRORROGACAO);
+        codec.codificar(prorrogacao, rascunho);
+        return rascunho.flip();
+    }
+
+    /**
+     * Codifica no maximo o que cabe em um segmento: um registro maior estoura dentro do codec,
+     * que desfaz as entradas novas do dicionario, em vez de deixar no dicionario textos que
+     * nunca chegariam ao arquivo.
+     */
+    private ByteBuffer codificarLocacao(Locacao locacao) {
+        int maximo = tamanhoSegmento - CABECALHO;
+        while (true) {
+            try {
+                rascunho.clear().limit(Math.min(rascunho.capacity(), maximo));
+                rascunho.put(LOCACAO);
+                codec.codificar(locacao, rascunho);
+                return rascunho.flip();
+            } catch (BufferOverflowException e) {
+                if (rascunho.limit() >= maximo) {
+                    throw new IllegalArgumentException("Registro maior que o segmento", e);
+                }
+                rascunho = ByteBuffer.allocate(Math.min(rascunho.capacity() * 2, maximo));
+            }
+        }
+    }
+}
@@ -0,0 +1,18 @@
+package br.ce.wcaquino.daos;
+
+import br.ce.wcaquino.entidades.Locacao;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+
+public interface LocacaoDAOAsync {
+
+    CompletableFuture<Void> salvar(Locacao locacao);
+
+    /**
+     * Adapta um {@link LocacaoDAO} bloqueante, executando cada gravacao no executor informado.
+     */
+    static LocacaoDAOAsync adaptar(LocacaoDAO locacaoDAO, Executor executor) {
+        return locacao -> CompletableFuture.runAsync(() -> locacaoDAO.salvar(locacao), executor);
+    }
+}
@@ -0,0 +1,285 @@
+package br.ce.wcaquino.daos;
+
+import br.ce.wcaquino.entidades.Locacao;
+import br.ce.wcaquino.entidades.Prorrogacao;
+import br.ce.wcaquino.utils.FilaCircular;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.stream.Stream;
+
+/**
+ * Decorador de {@link LocacaoDAO} que tira a gravacao do caminho da locacao: {@link #salvar}
+ * apenas enfileira a locacao em uma {@link FilaCircular} e uma thread gravadora repassa as
+ * pendentes ao delegado com {@link LocacaoDAO#salvarTodos}, assim que juntar
+ * {@code tamanhoLote} locacoes ou quando a mais antiga completar a janela de espera.
+ * <p>
+ * Com {@link Durabilidade#APOS_GRAVACAO} o {@code salvar} so retorna depois que o lote com a
+ * locacao foi gravado (e lanca o erro do delegado, se houver); com
+ * {@link Durabilidade#APOS_ENFILEIRAR} retorna na hora e falhas de gravacao apenas sao
+ * contadas em {@link #getFalhas()}. Consultas esperam a gravacao de tudo que ja foi
+ * enfileirado, e {@link #close()} grava o que restar na fila.
+ */
+public class LocacaoDAOGravacaoAgrupada implements LocacaoDAO, AutoCloseable {
+
+    public enum Durabilidade {
+        /** Confirma depois que o lote foi gravado no delegado. */
+        APOS_GRAVACAO,
+        /** Confirma assim que a locacao entra na fila. */
+        APOS_ENFILEIRAR
+    }
+
+    private final LocacaoDAO delegado;
+    private final int tamanhoLote;
+    private final long janelaNanos;
+    private final Durabilidade durabilidade;
+
+    private final FilaCircular<Pendente> fila;
+    private final Thread gravador;
+    private final Object monitor = new Object();
+    private volatile boolean fechado;
+    private volatile boolean descarregarAgora;
+    private final AtomicInteger enfileirando = new AtomicInteger();
+    private long processados;
+
+    private final LongAdder lotes = new LongAdder();
+    private final LongAdder falhas = new LongAdder();
+
+    /**
+     * @param capacidade  Tamanho da fila; com ela cheia, {@code salvar} espera a gravadora
+     * @param tamanhoLote Quantidade de locacoes que dispara a gravacao
+     * @param janela      Tempo maximo que uma locacao espera na fila por um lote cheio
+     */
+    public LocacaoDAOGravacaoAgrupada(LocacaoDAO delegado, int capacidade, int tamanhoLote, Duration janela,
+                                      Durabilidade durabilidade) {
+        if (tamanhoLote <= 0) {
+            throw new IllegalArgumentException("Tamanho do lote deve ser positivo");
+        }
+        this.delegado = delegado;
+        this.tamanhoLote = tamanhoLote;
+        this.janelaNanos = janela.toNanos();
+        this.durabilidade = durabilidade;
+        this.fila = new FilaCircular<>(capacidade);
+        this.gravador = new Thread(this::gravar, "gravador-locacoes");
+        this.gravador.setDaemon(true);
+        this.gravador.start();
+    }
+
+    @Override
+    public void salvar(Locacao locacao) {
+        Pendente pendente = new Pendente(locacao,
+                durabilidade == Durabilidade.APOS_GRAVACAO ? new CompletableFuture<>() : null);
+        enfileirar(pendente);
+        if (pendente.gravado != null) {
+            aguardar(pendente.gravado);
+        }
+    }
+
+    @Override
+    public void salvarTodos(List<Locacao> locacoes) {
+        List<CompletableFuture<Void>> gravados = new ArrayList<>();
+        for (Locacao locacao : locacoes) {
+            Pendente pendente = new Pendente(locacao,
+                    durabilidade == Durabilidade.APOS_GRAVACAO ? new CompletableFuture<>() : null);
+            enfileirar(pendente);
+            if (pendente.gravado != null) {
+                gravados.add(pendente.gravado);
+            }
+        }
+        gravados.forEach(LocacaoDAOGravacaoAgrupada::aguardar);
+    }
+
+    /**
+     * Grava o que estiver na fila e repassa as prorrogacoes ao delegado na hora, para que
+     * continuem sendo gravadas como alteracao e nao como locacao inteira.
+     */
+    @Override
+    public List<Prorrogacao> registrarProrrogacoes(List<Prorrogacao> prorrogacoes) {
+        descarregar();
+        return delegado.registrarProrrogacoes(prorrogacoes);
+    }
+
+    @Override
+    public List<Locacao> obterLocacoesPendentes() {
+        descarregar();
+        return delegado.obterLocacoesPendentes();
+    }
+
+    @Override
+    public Stream<Locacao> streamLocacoesPendentes() {
+        descarregar();
+        return delegado.streamLocacoesPendentes();
+    }
+
+    @Override
+    public Stream<Locacao> obterLocacoesAtrasadas(Instant agora) {
+        descarregar();
+        return delegado.obterLocacoesAtrasadas(agora);
+    }
+
+    /**
+     * Grava imediatamente tudo que ja foi enfileirado, sem esperar a janela.
+     *
+     * @throws IllegalStateException se o DAO ja estiver fechado
+     */
+    public void descarregar() {
+        if (fechado) {
+            throw new IllegalStateException("DAO fechado");
+        }
+        long alvo = fila.getProduzidos();
+        synchronized (monitor) {
+            while (processados < alvo) {
+                if (!gravador.isAlive()) {
+                    throw new IllegalStateException("DAO fechado");
+                }
+                descarregarAgora = true;
+                LockSupport.unpark(gravador);
+                try {
+                    monitor.wait(10);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new IllegalStateException("Interrompido aguardando a gravacao", e);
+                }
+            }
+        }
+    }
+
+    public long getLotes() {
+        return lotes.sum();
+    }
+
+    public long getFalhas() {
+        return falhas.sum();
+    }
+
+    /**
+     * Espera os {@code salvar} em andamento, grava o que restar na fila e encerra a gravadora.
+     */
+    @Override
+    public void close() {
+        fechado = true;
+        // quem ja passou pela verificacao de fechado termina de enfileirar antes do ultimo dreno
+        while (enfileirando.get() > 0) {
+            LockSupport.unpark(gravador);
+            LockSupport.parkNanos(TimeUnit.MICROSECONDS.toNanos(50));
+        }
+        LockSupport.unpark(gravador);
+        boolean interrompido = false;
+        while (gravador.isAlive()) {
+            try {
+                gravador.join();
+            } catch (InterruptedException e) {
+                interrompido = true;
+            }
+        }
+        List<Pendente> restantes = new ArrayList<>();
+        while (fila.drenar(restantes, tamanhoLote) > 0) {
+            gravarLote(restantes);
+        }
+        if (interrompido) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void enfileirar(Pendente pendente) {
+        enfileirando.incrementAndGet();
+        try {
+            if (fechado) {
+                throw new IllegalStateException("DAO fechado");
+            }
+            while (!fila.oferecer(pendente)) {
+                LockSupport.unpark(gravador);
+                LockSupport.parkNanos(TimeUnit.MICROSECONDS.toNanos(50));
+            }
+        } finally {
+            enfileirando.decrementAndGet();
+        }
+        if (fila.tamanho() >= tamanhoLote) {
+            LockSupport.unpark(gravador);
+        }
+    }
+
+    private void gravar() {
+        List<Pendente> lote = new ArrayList<>(tamanhoLote);
+        long inicioLote = 0;
+        while (!fechado || !fila.isVazia() || !lote.isEmpty()) {
+            boolean vazio = lote.isEmpty();
+            fila.drenar(lote, tamanhoLote - lote.size());
+            if (lote.isEmpty()) {
+                LockSupport.parkNanos(this, janelaNanos);
+                continue;
+            }
+            if (vazio) {
+                inicioLote = System.nanoTime();
+            }
+
+            long espera = inicioLote + janelaNanos - System.nanoTime();
+            if (lote.size() < tamanhoLote && espera > 0 && !fechado && !descarregarAgora) {
+                LockSupport.parkNanos(this, espera);
+                continue;
+            }
+            descarregarAgora = false;
+            gravarLote(lote);
+        }
+    }
+
+    private void gravarLote(List<Pendente> lote) {
+        List<Locacao> locacoes = new ArrayList<>(lote.size());
+        lote.forEach(pendente -> locacoes.add(pendente.locacao));
+        Throwable erro = null;
+        try {
+            delegado.salvarTodos(locacoes);
+        } catch (Throwable e) {
+            // inclusive Error: a gravadora segue viva e quem espera o lote recebe a falha
+            erro = e;
+            falhas.increment();
+        }
+        lotes.increment();
+
+        for (Pendente pendente : lote) {
+            if (pendente.gravado == null) {
+                continue;
+            }
+            if (erro == null) {
+                pendente.gravado.complete(null);
+            } else {
+                pendente.gravado.completeExceptionally(erro);
+            }
+        }
+        synchronized (monitor) {
+            processados += lote.size();
+            monitor.notifyAll();
+        }
+        lote.clear();
+    }
+
+    private static void aguardar(CompletableFuture<Void> gravado) {
+        try {
+            gravado.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof Error) {
+                throw (Error) e.getCause();
+            }
+            throw e.getCause() instanceof RuntimeException ? (RuntimeException) e.getCause() : e;
+        }
+    }
+
+    private static final class Pendente {
+
+        private final Locacao locacao;
+        private final CompletableFuture<Void> gravado;
+
+        Pendente(Locacao locacao, CompletableFuture<Void> gravado) {
+            this.locacao = locacao;
+            this.gravado = gravado;
+        }
+    }
+}
@@ -0,0 +1,151 @@
+package br.ce.wcaquino.daos;
+
+import br.ce.wcaquino.entidades.Locacao;
+import br.ce.wcaquino.entidades.Prorrogacao;
+
+import java.time.Instant;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Implementacao em memoria de {@link LocacaoDAO}. As locacoes pendentes ficam agrupadas
+ * pelo dia de vencimento (epoch-day) em um skip list, de forma que a consulta de atrasadas
+ * visita apenas os dias ja vencidos, e nao todas as locacoes pendentes. Dias que ficam sem
+ * pendentes saem do skip list, para que a consulta nao percorra dias vazios.
+ */
+public class LocacaoDAOMemoria implements LocacaoDAO {
+
+    private final ConcurrentNavigableMap<Long, PendentesDoDia> pendentesPorVencimento = new ConcurrentSkipListMap<>();
+    private final ZoneId fuso;
+
+    public LocacaoDAOMemoria() {
+        this(ZoneId.systemDefault());
+    }
+
+    public LocacaoDAOMemoria(ZoneId fuso) {
+        this.fuso = fuso;
+    }
+
+    @Override
+    public void salvar(Locacao locacao) {
+        long dia = diaVencimento(locacao);
+        while (true) {
+            PendentesDoDia pendentesDoDia = pendentesPorVencimento.computeIfAbsent(dia, d -> new PendentesDoDia());
+            if (pendentesDoDia.adicionar(locacao)) {
+                return;
+            }
+            // o dia esvaziou e esta saindo do mapa; ajuda a retira-lo e tenta de novo
+            pendentesPorVencimento.remove(dia, pendentesDoDia);
+        }
+    }
+
+    /**
+     * Retira a locacao das pendentes.
+     *
+     * @return <code>true</code> caso a locacao estivesse pendente
+     */
+    public boolean registrarDevolucao(Locacao locacao) {
+        long dia = diaVencimento(locacao);
+        PendentesDoDia pendentesDoDia = pendentesPorVencimento.get(dia);
+        if (pendentesDoDia == null || !pendentesDoDia.remover(locacao)) {
+            return false;
+        }
+        if (pendentesDoDia.isFechado()) {
+            pendentesPorVencimento.remove(dia, pendentesDoDia);
+        }
+        return true;
+    }
+
+    /**
+     * Aplica as prorrogacoes nas locacoes pendentes, movendo-as para o novo dia de vencimento.
+     */
+    @Override
+    public List<Prorrogacao> registrarProrrogacoes(List<Prorrogacao> prorrogacoes) {
+        List<Prorrogacao> aplicadas = new ArrayList<>(prorrogacoes.size());
+        for (Prorrogacao prorrogacao : prorrogacoes) {
+            Locacao locacao = prorrogacao.getLocacao();
+            if (locacao.getVersao() == prorrogacao.getVersao() - 1 && registrarDevolucao(locacao)) {
+                prorrogacao.aplicar(locacao);
+                salvar(locacao);
+                aplicadas.add(prorrogacao);
+            }
+        }
+        return aplicadas;
+    }
+
+    @Override
+    public List<Locacao> obterLocacoesPendentes() {
+        return streamLocacoesPendentes().collect(Collectors.toCollection(ArrayList::new));
+    }
+
+    @Override
+    public Stream<Locacao> streamLocacoesPendentes() {
+        return pendentesPorVencimento.values().stream().flatMap(PendentesDoDia::stream);
+    }
+
+    @Override
+    public Stream<Locacao> obterLocacoesAtrasadas(Instant agora) {
+        long hoje = agora.atZone(fuso).toLocalDate().toEpochDay();
+
+        Stream<Locacao> diasAnteriores = pendentesPorVencimento.headMap(hoje, false).values().stream()
+                .flatMap(PendentesDoDia::stream);
+
+        PendentesDoDia pendentesDeHoje = pendentesPorVencimento.get(hoje);
+        if (pendentesDeHoje == null) {
+            return diasAnteriores;
+        }
+
+        return Stream.concat(diasAnteriores, pendentesDeHoje.stream()
+                .filter(locacao -> locacao.getDataRetorno().toInstant().isBefore(agora)));
+    }
+
+    int diasComPendentes() {
+        return pendentesPorVencimento.size();
+    }
+
+    private long diaVencimento(Locacao locacao) {
+        return locacao.getDataRetorno().toInstant().atZone(fuso).toLocalDate().toEpochDay();
+    }
+
+    /**
+     * Locacoes pendentes de um dia. Ao ficar vazio o dia e fechado e nao aceita mais
+     * locacoes, de forma que quem salvar nesse intervalo cria um novo dia no mapa, em
+     * vez de adicionar a um conjunto que esta sendo descartado.
+     */
+    private static final class PendentesDoDia {
+
+        private final Set<Locacao> locacoes = ConcurrentHashMap.newKeySet();
+        private boolean fechado;
+
+        synchronized boolean adicionar(Locacao locacao) {
+            if (fechado) {
+                return false;
+            }
+            locacoes.add(locacao);
+            return true;
+        }
+
+        synchronized boolean remover(Locacao locacao) {
+            boolean removida = locacoes.remove(locacao);
+            if (locacoes.isEmpty()) {
+                fechado = true;
+            }
+            return removida;
+        }
+
+        synchronized boolean isFechado() {
+            return fechado;
+        }
+
+        Stream<Locacao> stream() {
+            return locacoes.stream();
+        }
+    }
+}
@@ -1,6 +1,5 @@
 package br.ce.wcaquino.entidades;
 
-import lombok.AllArgsConstructor;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
@@ -10,14 +9,38 @@ import java.util.List;
 
 @Getter
 @Setter
-@AllArgsConstructor
 @NoArgsConstructor
 public class Locacao {
 
+	private Long id;
 	private Usuario usuario;
 	private List<Filme> filmes;
 	private Date dataLocacao;
 	private Date dataRetorno;
 	private double valor;
+	/**
+	 * Ids no {@link br.ce.wcaquino.daos.CatalogoFilmes}, para locacoes feitas pelo catalogo.
+	 */
+	private int[] idsFilmes;
+	/**
+	 * Incrementada a cada {@link Prorrogacao} aplicada.
+	 */
+	private int versao;
+	/**
+	 * Soma do valor cobrado pelas prorrogacoes aplicadas, alem de {@link #valor}.
+	 */
+	private double valorProrrogacoes;
+
+	/**
+	 * Construtor original; os campos acrescentados depois (id, ids do catalogo, versao e
+	 * prorrogacoes) sao preenchidos pelos setters, para que novos campos nao mudem esta assinatura.
+	 */
+	public Locacao(Usuario usuario, List<Filme> filmes, Date dataLocacao, Date dataRetorno, double valor) {
+		this.usuario = usuario;
+		this.filmes = filmes;
+		this.dataLocacao = dataLocacao;
+		this.dataRetorno = dataRetorno;
+		this.valor = valor;
+	}
 
 }
\ No newline at end of file
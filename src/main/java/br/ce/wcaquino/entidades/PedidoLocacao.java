@@ -0,0 +1,19 @@
+package br.ce.wcaquino.entidades;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.util.List;
+
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+public class PedidoLocacao {
+
+    private Usuario usuario;
+    private List<Filme> filmes;
+
+}
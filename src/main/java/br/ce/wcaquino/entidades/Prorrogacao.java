@@ -0,0 +1,37 @@
+package br.ce.wcaquino.entidades;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.Date;
+
+/**
+ * Prorrogacao registrada como alteracao da locacao original, e nao como uma copia dela:
+ * a nova data de retorno, o valor cobrado pela prorrogacao e a versao que a locacao passa
+ * a ter. So e aplicada se a locacao ainda estiver na versao anterior; ao ser aplicada, o
+ * valor cobrado e acumulado em {@link Locacao#getValorProrrogacoes()}.
+ */
+@Getter
+@AllArgsConstructor
+public class Prorrogacao {
+
+	private Locacao locacao;
+	private int versao;
+	private Date dataRetorno;
+	private double valor;
+
+	/**
+	 * Aplica a prorrogacao em {@code alvo}, que deve representar a mesma locacao.
+	 *
+	 * @return <code>false</code> se o alvo nao estiver na versao anterior a desta prorrogacao
+	 */
+	public boolean aplicar(Locacao alvo) {
+		if (alvo.getVersao() != versao - 1) {
+			return false;
+		}
+		alvo.setDataRetorno(dataRetorno);
+		alvo.setValorProrrogacoes(alvo.getValorProrrogacoes() + valor);
+		alvo.setVersao(versao);
+		return true;
+	}
+}
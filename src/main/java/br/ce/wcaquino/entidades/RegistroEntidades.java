@@ -0,0 +1,45 @@
+package br.ce.wcaquino.entidades;
+
+import br.ce.wcaquino.utils.Internador;
+import lombok.Value;
+
+/**
+ * Instancias canonicas de {@link Usuario} e {@link Filme}, para que o historico de locacoes
+ * carregado em memoria compartilhe um unico objeto por usuario e por filme em vez de uma
+ * copia por locacao. Usuarios sao identificados pelo nome e filmes pelo valor completo
+ * (nome, estoque e preco), de forma que a canonizacao nunca troca um filme por outro com
+ * dados diferentes.
+ * <p>
+ * Deve ser usado apenas na carga e decodificacao, onde os objetos ainda nao foram entregues
+ * a ninguem: as instancias canonicas sao compartilhadas e nao devem ser alteradas. Cada DAO
+ * tem o proprio registro, para que esse compartilhamento fique restrito ao que ele carregou.
+ */
+public class RegistroEntidades {
+
+    private final Internador<Usuario> usuarios = new Internador<>(Usuario::getNome);
+    private final Internador<Filme> filmes = new Internador<>(
+            filme -> new ChaveFilme(filme.getNome(), filme.getEstoque(), filme.getPrecoLocacao()));
+
+    public Usuario canonizar(Usuario usuario) {
+        return usuarios.canonizar(usuario);
+    }
+
+    public Filme canonizar(Filme filme) {
+        return filmes.canonizar(filme);
+    }
+
+    public int quantidadeUsuarios() {
+        return usuarios.tamanho();
+    }
+
+    public int quantidadeFilmes() {
+        return filmes.tamanho();
+    }
+
+    @Value
+    private static class ChaveFilme {
+        String nome;
+        Integer estoque;
+        double precoLocacao;
+    }
+}
@@ -4,4 +4,17 @@ public class FilmeSemEstoqueException extends Exception {
 
 	private static final long serialVersionUID = -4970527916966267734L;
 
+	public FilmeSemEstoqueException() {
+	}
+
+	protected FilmeSemEstoqueException(boolean writableStackTrace) {
+		super(null, null, false, writableStackTrace);
+	}
+
+	/**
+	 * Excecao sem pilha nem supressao, que pode ser pre-alocada e lancada varias vezes.
+	 */
+	public static FilmeSemEstoqueException semPilha() {
+		return new FilmeSemEstoqueException(false);
+	}
 }
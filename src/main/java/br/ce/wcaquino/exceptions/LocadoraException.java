@@ -7,4 +7,15 @@ public class LocadoraException extends Exception {
 	public LocadoraException(String message) {
 		super(message);
 	}
+
+	protected LocadoraException(String message, boolean writableStackTrace) {
+		super(message, null, false, writableStackTrace);
+	}
+
+	/**
+	 * Excecao sem pilha nem supressao, que pode ser pre-alocada e lancada varias vezes.
+	 */
+	public static LocadoraException semPilha(String message) {
+		return new LocadoraException(message, false);
+	}
 }
@@ -0,0 +1,10 @@
+package br.ce.wcaquino.exceptions;
+
+public class SPCIndisponivelException extends Exception {
+
+	private static final long serialVersionUID = -2675187406358316283L;
+
+	public SPCIndisponivelException(String message) {
+		super(message);
+	}
+}
@@ -0,0 +1,13 @@
+package br.ce.wcaquino.metricas;
+
+public enum Fase {
+    VALIDACAO,
+    SPC,
+    ESTOQUE,
+    PRECIFICACAO,
+    DATAS,
+    PERSISTENCIA,
+    CONSULTA,
+    NOTIFICACAO,
+    TOTAL
+}
@@ -0,0 +1,72 @@
+package br.ce.wcaquino.metricas;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Histograma log-linear sem locks, no estilo do HdrHistogram: cada potencia de dois e dividida
+ * em {@value #SUBFAIXAS} faixas lineares, o que limita o erro relativo de qualquer percentil a
+ * cerca de 3%, cobrindo todo o intervalo de {@code long} em um array fixo de contadores.
+ */
+public class Histograma {
+
+    private static final int BITS_SUBFAIXA = 5;
+    static final int SUBFAIXAS = 1 << BITS_SUBFAIXA;
+    static final int FAIXAS = (Long.SIZE - 1 - BITS_SUBFAIXA + 1) * SUBFAIXAS;
+
+    private final AtomicLongArray contagens = new AtomicLongArray(FAIXAS);
+    private final LongAdder total = new LongAdder();
+    private final LongAdder soma = new LongAdder();
+    private final AtomicLong maximo = new AtomicLong();
+
+    /**
+     * @param valor Valor a registrar; negativos contam como zero
+     */
+    public void registrar(long valor) {
+        if (valor < 0) {
+            valor = 0;
+        }
+        contagens.incrementAndGet(faixa(valor));
+        total.increment();
+        soma.add(valor);
+        long atual = maximo.get();
+        while (valor > atual && !maximo.compareAndSet(atual, valor)) {
+            atual = maximo.get();
+        }
+    }
+
+    /**
+     * Copia os contadores. Registros concorrentes podem ficar de fora de parte dos totais,
+     * mas nenhum e contado duas vezes.
+     */
+    public InstantaneoHistograma instantaneo() {
+        long[] copia = new long[FAIXAS];
+        for (int i = 0; i < FAIXAS; i++) {
+            copia[i] = contagens.get(i);
+        }
+        return new InstantaneoHistograma(copia, total.sum(), soma.sum(), maximo.get());
+    }
+
+    static int faixa(long valor) {
+        if (valor < SUBFAIXAS) {
+            return (int) valor;
+        }
+        int expoente = 63 - Long.numberOfLeadingZeros(valor);
+        int subfaixa = (int) (valor >>> (expoente - BITS_SUBFAIXA)) - SUBFAIXAS;
+        return (expoente - BITS_SUBFAIXA + 1) * SUBFAIXAS + subfaixa;
+    }
+
+    /**
+     * @return Maior valor que cai na faixa
+     */
+    static long limiteSuperior(int faixa) {
+        if (faixa < SUBFAIXAS) {
+            return faixa;
+        }
+        int grupo = faixa / SUBFAIXAS;
+        int deslocamento = grupo - 1;
+        long inicio = (long) (SUBFAIXAS + faixa % SUBFAIXAS) << deslocamento;
+        return inicio + (1L << deslocamento) - 1;
+    }
+}
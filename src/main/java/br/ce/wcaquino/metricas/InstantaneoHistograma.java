@@ -0,0 +1,42 @@
+package br.ce.wcaquino.metricas;
+
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Copia imutavel de um {@link Histograma} em um dado momento.
+ */
+@Getter
+@AllArgsConstructor(access = AccessLevel.PACKAGE)
+public class InstantaneoHistograma {
+
+    @Getter(AccessLevel.NONE)
+    private final long[] contagens;
+    private final long total;
+    private final long soma;
+    private final long maximo;
+
+    /**
+     * @param percentil Entre 0 e 100
+     * @return Limite superior da faixa do percentil, nunca acima do maximo registrado
+     */
+    public long percentil(double percentil) {
+        if (total == 0) {
+            return 0;
+        }
+        long posicao = Math.max(1, (long) Math.ceil(total * percentil / 100.0));
+        long acumulado = 0;
+        for (int i = 0; i < contagens.length; i++) {
+            acumulado += contagens[i];
+            if (acumulado >= posicao) {
+                return Math.min(Histograma.limiteSuperior(i), maximo);
+            }
+        }
+        return maximo;
+    }
+
+    public double media() {
+        return total == 0 ? 0 : (double) soma / total;
+    }
+}
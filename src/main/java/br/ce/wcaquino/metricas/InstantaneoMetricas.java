@@ -0,0 +1,58 @@
+package br.ce.wcaquino.metricas;
+
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.Collections;
+import java.util.Map;
+
+/**
+ * Copia de todas as metricas de um {@link Metricas}, ordenadas por nome.
+ */
+@AllArgsConstructor(access = AccessLevel.PACKAGE)
+public class InstantaneoMetricas {
+
+    private static final double[] QUANTIS = {0.5, 0.9, 0.99, 0.999};
+
+    private final Map<String, InstantaneoHistograma> histogramas;
+    private final Map<String, Long> contadores;
+
+    public Map<String, InstantaneoHistograma> getHistogramas() {
+        return Collections.unmodifiableMap(histogramas);
+    }
+
+    public Map<String, Long> getContadores() {
+        return Collections.unmodifiableMap(contadores);
+    }
+
+    public InstantaneoHistograma histograma(String nome) {
+        return histogramas.get(nome);
+    }
+
+    public long contador(String nome) {
+        return contadores.getOrDefault(nome, 0L);
+    }
+
+    /**
+     * Exposicao em texto no formato do Prometheus: contadores como {@code counter} e
+     * histogramas como {@code summary} com quantis, soma, contagem e maximo.
+     */
+    public String exportarTexto() {
+        StringBuilder texto = new StringBuilder();
+        contadores.forEach((nome, valor) -> texto
+                .append("# TYPE ").append(nome).append(" counter\n")
+                .append(nome).append(' ').append(valor).append('\n'));
+        histogramas.forEach((nome, histograma) -> {
+            texto.append("# TYPE ").append(nome).append(" summary\n");
+            for (double quantil : QUANTIS) {
+                texto.append(nome).append("{quantile=\"").append(quantil).append("\"} ")
+                        .append(histograma.percentil(quantil * 100)).append('\n');
+            }
+            texto.append(nome).append("_sum ").append(histograma.getSoma()).append('\n')
+                    .append(nome).append("_count ").append(histograma.getTotal()).append('\n')
+                    .append(nome).append("_max ").append(histograma.getMaximo()).append('\n');
+        });
+        return texto.toString();
+    }
+}
@@ -0,0 +1,33 @@
+package br.ce.wcaquino.metricas;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Registro de histogramas e contadores por nome. A busca por nome e feita uma vez e a
+ * instancia devolvida e reutilizada, entao o caminho de registro nao passa pelo mapa.
+ */
+public class Metricas {
+
+    private final ConcurrentMap<String, Histograma> histogramas = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, LongAdder> contadores = new ConcurrentHashMap<>();
+
+    public Histograma histograma(String nome) {
+        return histogramas.computeIfAbsent(nome, novo -> new Histograma());
+    }
+
+    public LongAdder contador(String nome) {
+        return contadores.computeIfAbsent(nome, novo -> new LongAdder());
+    }
+
+    public InstantaneoMetricas instantaneo() {
+        Map<String, InstantaneoHistograma> copiaHistogramas = new TreeMap<>();
+        histogramas.forEach((nome, histograma) -> copiaHistogramas.put(nome, histograma.instantaneo()));
+        Map<String, Long> copiaContadores = new TreeMap<>();
+        contadores.forEach((nome, contador) -> copiaContadores.put(nome, contador.sum()));
+        return new InstantaneoMetricas(copiaHistogramas, copiaContadores);
+    }
+}
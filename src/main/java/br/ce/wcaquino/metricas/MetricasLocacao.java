@@ -0,0 +1,23 @@
+package br.ce.wcaquino.metricas;
+
+import lombok.Getter;
+
+/**
+ * Metricas das operacoes do {@code LocacaoService}.
+ */
+@Getter
+public class MetricasLocacao {
+
+    /** Nao registra nada. */
+    public static final MetricasLocacao DESLIGADA = new MetricasLocacao(null);
+
+    private final MetricasOperacao aluguel;
+    private final MetricasOperacao notificacao;
+    private final MetricasOperacao prorrogacao;
+
+    public MetricasLocacao(Metricas registro) {
+        this.aluguel = new MetricasOperacao(registro, "locacao_alugar");
+        this.notificacao = new MetricasOperacao(registro, "locacao_notificar_atrasos");
+        this.prorrogacao = new MetricasOperacao(registro, "locacao_prorrogar");
+    }
+}
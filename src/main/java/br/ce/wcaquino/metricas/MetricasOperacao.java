@@ -0,0 +1,88 @@
+package br.ce.wcaquino.metricas;
+
+import java.util.Locale;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Latencia por {@link Fase}, em nanossegundos, e contagem de resultados de uma operacao.
+ * Os nomes seguem {@code <prefixo>_<fase>_nanos} e {@code <prefixo>_<resultado>_total}.
+ * <p>
+ * Uso tipico: {@code long inicio = iniciar()} e, ao fim de cada fase,
+ * {@code fase = registrar(Fase.X, fase)}. Desligada, nenhuma chamada le o relogio.
+ */
+public class MetricasOperacao {
+
+    private final Metricas registro;
+    private final String prefixo;
+    private final Histograma[] fases = new Histograma[Fase.values().length];
+    private final LongAdder sucessos;
+    private final LongAdder rejeicoes;
+    private final LongAdder erros;
+
+    MetricasOperacao(Metricas registro, String prefixo) {
+        this.registro = registro;
+        this.prefixo = prefixo;
+        this.sucessos = registro == null ? null : registro.contador(prefixo + "_sucesso_total");
+        this.rejeicoes = registro == null ? null : registro.contador(prefixo + "_rejeicao_total");
+        this.erros = registro == null ? null : registro.contador(prefixo + "_erro_total");
+    }
+
+    public boolean isAtiva() {
+        return registro != null;
+    }
+
+    public long iniciar() {
+        return registro == null ? 0 : System.nanoTime();
+    }
+
+    /**
+     * @return Instante do fim da fase, para ser usado como inicio da proxima
+     */
+    public long registrar(Fase fase, long inicio) {
+        if (registro == null) {
+            return 0;
+        }
+        long agora = System.nanoTime();
+        histograma(fase).registrar(agora - inicio);
+        return agora;
+    }
+
+    /**
+     * Registra uma duracao ja acumulada, para fases intercaladas com outras.
+     */
+    public void registrarDuracao(Fase fase, long nanos) {
+        if (registro != null) {
+            histograma(fase).registrar(nanos);
+        }
+    }
+
+    public void sucesso(long inicio) {
+        concluir(sucessos, inicio);
+    }
+
+    /** Operacao recusada por regra de negocio. */
+    public void rejeicao(long inicio) {
+        concluir(rejeicoes, inicio);
+    }
+
+    public void erro(long inicio) {
+        concluir(erros, inicio);
+    }
+
+    private void concluir(LongAdder resultado, long inicio) {
+        if (registro != null) {
+            resultado.increment();
+            registrar(Fase.TOTAL, inicio);
+        }
+    }
+
+    private Histograma histograma(Fase fase) {
+        Histograma histograma = fases[fase.ordinal()];
+        if (histograma == null) {
+            // corrida benigna: o registro devolve sempre a mesma instancia para o nome
+            histograma = registro.histograma(prefixo + "_" + fase.name().toLowerCase(Locale.ROOT) + "_nanos");
+            fases[fase.ordinal()] = histograma;
+        }
+        return histograma;
+    }
+}
@@ -1,9 +1,34 @@
 package br.ce.wcaquino.servicos;
 
 import br.ce.wcaquino.exceptions.NaoPodeDividirPorZeroException;
+import br.ce.wcaquino.servicos.ResultadoDivisao.Status;
 
+import java.nio.ByteBuffer;
+
+/**
+ * Operacoes escalares e em lote. As variantes sobre arrays usam lacos simples, sem
+ * chamadas nem desvios no corpo, para que o JIT consiga remover as verificacoes de
+ * limite e vetorizar a soma e a subtracao.
+ */
 public class Calculadora {
 
+	/**
+	 * Retornado por {@link #divide(int[], int[], int[])} quando nenhum divisor e zero.
+	 */
+	public static final int[] SEM_DIVISORES_ZERO = new int[0];
+
+	/**
+	 * Recebe cada linha processada por {@link #dividirLinhas}. Em caso de erro,
+	 * {@code valor} e 0.
+	 */
+	@FunctionalInterface
+	public interface ConsumidorDivisao {
+
+		void aceitar(int linha, Status status, int valor);
+	}
+
+	private static final long INVALIDO = Long.MIN_VALUE;
+
 	public int somar(int a, int b) {
 		return a + b;
 	}
@@ -23,6 +48,451 @@ public class Calculadora {
 		return Integer.parseInt(a) / Integer.parseInt(b);
 	}
 	
+	public void somar(int[] a, int[] b, int[] destino) {
+		int n = verificarTamanhos(a.length, b.length, destino.length);
+		for (int i = 0; i < n; i++) {
+			destino[i] = a[i] + b[i];
+		}
+	}
+
+	public void somar(long[] a, long[] b, long[] destino) {
+		int n = verificarTamanhos(a.length, b.length, destino.length);
+		for (int i = 0; i < n; i++) {
+			destino[i] = a[i] + b[i];
+		}
+	}
+
+	public void subtrair(int[] a, int[] b, int[] destino) {
+		int n = verificarTamanhos(a.length, b.length, destino.length);
+		for (int i = 0; i < n; i++) {
+			destino[i] = a[i] - b[i];
+		}
+	}
+
+	public void subtrair(long[] a, long[] b, long[] destino) {
+		int n = verificarTamanhos(a.length, b.length, destino.length);
+		for (int i = 0; i < n; i++) {
+			destino[i] = a[i] - b[i];
+		}
+	}
+
+	/**
+	 * Igual a {@link #somar(int[], int[], int[])}, mas lanca {@link ArithmeticException}
+	 * se alguma soma estourar. O estouro e acumulado sem desvios dentro do laco e so
+	 * depois e localizado, entao o caminho sem estouro continua vetorizavel; em caso de
+	 * erro, {@code destino} fica com os valores truncados e a mensagem informa o primeiro
+	 * indice que estourou.
+	 */
+	public void somarExato(int[] a, int[] b, int[] destino) {
+		int n = verificarTamanhos(a.length, b.length, destino.length);
+		int estouro = 0;
+		for (int i = 0; i < n; i++) {
+			int r = a[i] + b[i];
+			estouro |= (a[i] ^ r) & (b[i] ^ r);
+			destino[i] = r;
+		}
+		if (estouro < 0) {
+			throw estouro("soma", localizarEstouroSoma(a, b, destino));
+		}
+	}
+
+	public void somarExato(long[] a, long[] b, long[] destino) {
+		int n = verificarTamanhos(a.length, b.length, destino.length);
+		long estouro = 0;
+		for (int i = 0; i < n; i++) {
+			long r = a[i] + b[i];
+			estouro |= (a[i] ^ r) & (b[i] ^ r);
+			destino[i] = r;
+		}
+		if (estouro < 0) {
+			throw estouro("soma", localizarEstouroSoma(a, b, destino));
+		}
+	}
+
+	public void subtrairExato(int[] a, int[] b, int[] destino) {
+		int n = verificarTamanhos(a.length, b.length, destino.length);
+		int estouro = 0;
+		for (int i = 0; i < n; i++) {
+			int r = a[i] - b[i];
+			estouro |= (a[i] ^ b[i]) & (a[i] ^ r);
+			destino[i] = r;
+		}
+		if (estouro < 0) {
+			throw estouro("subtracao", localizarEstouroSubtracao(a, b, destino));
+		}
+	}
+
+	public void subtrairExato(long[] a, long[] b, long[] destino) {
+		int n = verificarTamanhos(a.length, b.length, destino.length);
+		long estouro = 0;
+		for (int i = 0; i < n; i++) {
+			long r = a[i] - b[i];
+			estouro |= (a[i] ^ b[i]) & (a[i] ^ r);
+			destino[i] = r;
+		}
+		if (estouro < 0) {
+			throw estouro("subtracao", localizarEstouroSubtracao(a, b, destino));
+		}
+	}
+
+	/**
+	 * Divide elemento a elemento. Posicoes com divisor zero recebem 0 em {@code destino}
+	 * em vez de interromper o lote.
+	 *
+	 * @return Indices dos divisores zero, em ordem, ou {@link #SEM_DIVISORES_ZERO}
+	 */
+	public int[] divide(int[] a, int[] b, int[] destino) {
+		int n = verificarTamanhos(a.length, b.length, destino.length);
+		int zeros = contarZeros(b, n);
+		if (zeros == 0) {
+			for (int i = 0; i < n; i++) {
+				destino[i] = a[i] / b[i];
+			}
+			return SEM_DIVISORES_ZERO;
+		}
+		int[] indices = new int[zeros];
+		int z = 0;
+		for (int i = 0; i < n; i++) {
+			if (b[i] == 0) {
+				destino[i] = 0;
+				indices[z++] = i;
+			} else {
+				destino[i] = a[i] / b[i];
+			}
+		}
+		return indices;
+	}
+
+	/**
+	 * @see #divide(int[], int[], int[])
+	 */
+	public int[] divide(long[] a, long[] b, long[] destino) {
+		int n = verificarTamanhos(a.length, b.length, destino.length);
+		int zeros = contarZeros(b, n);
+		if (zeros == 0) {
+			for (int i = 0; i < n; i++) {
+				destino[i] = a[i] / b[i];
+			}
+			return SEM_DIVISORES_ZERO;
+		}
+		int[] indices = new int[zeros];
+		int z = 0;
+		for (int i = 0; i < n; i++) {
+			if (b[i] == 0) {
+				destino[i] = 0;
+				indices[z++] = i;
+			} else {
+				destino[i] = a[i] / b[i];
+			}
+		}
+		return indices;
+	}
+
+	/**
+	 * Soma todos os valores em um <code>long</code>, sem estouro para ate 2^32 elementos.
+	 */
+	public long somar(int[] valores) {
+		long soma = 0;
+		for (int valor : valores) {
+			soma += valor;
+		}
+		return soma;
+	}
+
+	/**
+	 * Soma todos os valores com aritmetica de complemento de dois (estouro silencioso).
+	 */
+	public long somar(long[] valores) {
+		long soma = 0;
+		for (long valor : valores) {
+			soma += valor;
+		}
+		return soma;
+	}
+
+	/**
+	 * @throws ArithmeticException Se a soma estourar, informando o indice em que estourou
+	 */
+	public long somarExato(long[] valores) {
+		long soma = 0;
+		for (int i = 0; i < valores.length; i++) {
+			long r = soma + valores[i];
+			if (((soma ^ r) & (valores[i] ^ r)) < 0) {
+				throw estouro("soma", i);
+			}
+			soma = r;
+		}
+		return soma;
+	}
+
+	/**
+	 * @throws IllegalArgumentException Se {@code valores} estiver vazio
+	 */
+	public int minimo(int[] valores) {
+		verificarNaoVazio(valores.length);
+		int minimo = Integer.MAX_VALUE;
+		for (int valor : valores) {
+			minimo = Math.min(minimo, valor);
+		}
+		return minimo;
+	}
+
+	/**
+	 * @throws IllegalArgumentException Se {@code valores} estiver vazio
+	 */
+	public int maximo(int[] valores) {
+		verificarNaoVazio(valores.length);
+		int maximo = Integer.MIN_VALUE;
+		for (int valor : valores) {
+			maximo = Math.max(maximo, valor);
+		}
+		return maximo;
+	}
+
+	private static int contarZeros(int[] valores, int n) {
+		int zeros = 0;
+		for (int i = 0; i < n; i++) {
+			zeros += valores[i] == 0 ? 1 : 0;
+		}
+		return zeros;
+	}
+
+	private static int contarZeros(long[] valores, int n) {
+		int zeros = 0;
+		for (int i = 0; i < n; i++) {
+			zeros += valores[i] == 0 ? 1 : 0;
+		}
+		return zeros;
+	}
+
+	// os quatro localizadores sao chamados apenas depois de detectado o estouro, fora do laco quente
+	private static int localizarEstouroSoma(int[] a, int[] b, int[] destino) {
+		int i = 0;
+		while (((a[i] ^ destino[i]) & (b[i] ^ destino[i])) >= 0) {
+			i++;
+		}
+		return i;
+	}
+
+	private static int localizarEstouroSoma(long[] a, long[] b, long[] destino) {
+		int i = 0;
+		while (((a[i] ^ destino[i]) & (b[i] ^ destino[i])) >= 0) {
+			i++;
+		}
+		return i;
+	}
+
+	private static int localizarEstouroSubtracao(int[] a, int[] b, int[] destino) {
+		int i = 0;
+		while (((a[i] ^ b[i]) & (a[i] ^ destino[i])) >= 0) {
+			i++;
+		}
+		return i;
+	}
+
+	private static int localizarEstouroSubtracao(long[] a, long[] b, long[] destino) {
+		int i = 0;
+		while (((a[i] ^ b[i]) & (a[i] ^ destino[i])) >= 0) {
+			i++;
+		}
+		return i;
+	}
+
+	private static ArithmeticException estouro(String operacao, int indice) {
+		return new ArithmeticException("Estouro na " + operacao + " do indice " + indice);
+	}
+
+	private static void verificarNaoVazio(int tamanho) {
+		if (tamanho == 0) {
+			throw new IllegalArgumentException("Array vazio");
+		}
+	}
+
+	private static int verificarTamanhos(int a, int b, int destino) {
+		if (a != b || a != destino) {
+			throw new IllegalArgumentException("Arrays com tamanhos diferentes: " + a + ", " + b + ", " + destino);
+		}
+		return a;
+	}
+
+	/**
+	 * Versao de {@link #divide(String, String)} que nao lanca excecoes nem aloca: os numeros
+	 * sao lidos direto do texto, com as mesmas regras de {@link Integer#parseInt(String)}.
+	 *
+	 * @return O proprio {@code resultado}
+	 */
+	public ResultadoDivisao divide(CharSequence dividendo, CharSequence divisor, ResultadoDivisao resultado) {
+		return dividir(analisar(dividendo, 0, dividendo.length()), analisar(divisor, 0, divisor.length()), resultado);
+	}
+
+	/**
+	 * Divide os numeros em {@code [inicioDividendo, fimDividendo)} e {@code [inicioDivisor, fimDivisor)}
+	 * de {@code texto}.
+	 */
+	public ResultadoDivisao divide(CharSequence texto, int inicioDividendo, int fimDividendo,
+			int inicioDivisor, int fimDivisor, ResultadoDivisao resultado) {
+		return dividir(analisar(texto, inicioDividendo, fimDividendo), analisar(texto, inicioDivisor, fimDivisor),
+				resultado);
+	}
+
+	/**
+	 * Igual a {@link #divide(CharSequence, int, int, int, int, ResultadoDivisao)} sobre bytes
+	 * ASCII. Usa indices absolutos e nao altera a posicao do buffer.
+	 */
+	public ResultadoDivisao divide(ByteBuffer buffer, int inicioDividendo, int fimDividendo,
+			int inicioDivisor, int fimDivisor, ResultadoDivisao resultado) {
+		return dividir(analisar(buffer, inicioDividendo, fimDividendo), analisar(buffer, inicioDivisor, fimDivisor),
+				resultado);
+	}
+
+	/**
+	 * Processa linhas {@code dividendo<separador>divisor} entre a posicao e o limite do buffer
+	 * (terminadas por \n ou \r\n; linhas vazias sao ignoradas), entregando cada resultado
+	 * ao {@code consumidor}. Linhas sem separador sao {@link Status#ENTRADA_INVALIDA}.
+	 *
+	 * @param separador Caractere ASCII; o buffer e lido byte a byte
+	 * @return Quantidade de linhas entregues
+	 * @throws IllegalArgumentException Se o separador nao for ASCII
+	 */
+	public int dividirLinhas(ByteBuffer buffer, char separador, ConsumidorDivisao consumidor) {
+		if (separador > 0x7F) {
+			throw new IllegalArgumentException("Separador deve ser ASCII: " + separador);
+		}
+		ResultadoDivisao resultado = new ResultadoDivisao();
+		int processadas = 0;
+		int linha = 0;
+		int inicio = buffer.position();
+		int limite = buffer.limit();
+		while (inicio < limite) {
+			linha++;
+			int fim = inicio;
+			int meio = -1;
+			byte b;
+			while (fim < limite && (b = buffer.get(fim)) != '\n') {
+				if (b == separador && meio < 0) {
+					meio = fim;
+				}
+				fim++;
+			}
+			int fimConteudo = fim > inicio && buffer.get(fim - 1) == '\r' ? fim - 1 : fim;
+			if (fimConteudo > inicio) {
+				if (meio < 0) {
+					resultado.definir(Status.ENTRADA_INVALIDA, 0);
+				} else {
+					divide(buffer, inicio, meio, meio + 1, fimConteudo, resultado);
+				}
+				consumidor.aceitar(linha, resultado.getStatus(), resultado.getValor());
+				processadas++;
+			}
+			inicio = fim + 1;
+		}
+		return processadas;
+	}
+
+	/**
+	 * @see #dividirLinhas(ByteBuffer, char, ConsumidorDivisao)
+	 */
+	public int dividirLinhas(CharSequence texto, char separador, ConsumidorDivisao consumidor) {
+		ResultadoDivisao resultado = new ResultadoDivisao();
+		int processadas = 0;
+		int linha = 0;
+		int inicio = 0;
+		int limite = texto.length();
+		while (inicio < limite) {
+			linha++;
+			int fim = inicio;
+			int meio = -1;
+			char c;
+			while (fim < limite && (c = texto.charAt(fim)) != '\n') {
+				if (c == separador && meio < 0) {
+					meio = fim;
+				}
+				fim++;
+			}
+			int fimConteudo = fim > inicio && texto.charAt(fim - 1) == '\r' ? fim - 1 : fim;
+			if (fimConteudo > inicio) {
+				if (meio < 0) {
+					resultado.definir(Status.ENTRADA_INVALIDA, 0);
+				} else {
+					divide(texto, inicio, meio, meio + 1, fimConteudo, resultado);
+				}
+				consumidor.aceitar(linha, resultado.getStatus(), resultado.getValor());
+				processadas++;
+			}
+			inicio = fim + 1;
+		}
+		return processadas;
+	}
+
+	private static ResultadoDivisao dividir(long dividendo, long divisor, ResultadoDivisao resultado) {
+		if (dividendo == INVALIDO || divisor == INVALIDO) {
+			return resultado.definir(Status.ENTRADA_INVALIDA, 0);
+		}
+		if (divisor == 0) {
+			return resultado.definir(Status.DIVISAO_POR_ZERO, 0);
+		}
+		return resultado.definir(Status.OK, (int) dividendo / (int) divisor);
+	}
+
+	/**
+	 * Le um int como {@link Integer#parseInt(String)}, acumulando em negativo para aceitar
+	 * {@link Integer#MIN_VALUE}.
+	 *
+	 * @return O valor, ou {@link #INVALIDO}
+	 */
+	private static long analisar(CharSequence texto, int inicio, int fim) {
+		if (inicio >= fim) {
+			return INVALIDO;
+		}
+		char primeiro = texto.charAt(inicio);
+		boolean negativo = primeiro == '-';
+		int i = negativo || primeiro == '+' ? inicio + 1 : inicio;
+		if (i == fim) {
+			return INVALIDO;
+		}
+		long limite = negativo ? Integer.MIN_VALUE : -Integer.MAX_VALUE;
+		long acumulado = 0;
+		for (; i < fim; i++) {
+			int digito = texto.charAt(i) - '0';
+			if (digito < 0 || digito > 9) {
+				return INVALIDO;
+			}
+			acumulado = acumulado * 10 - digito;
+			if (acumulado < limite) {
+				return INVALIDO;
+			}
+		}
+		return negativo ? acumulado : -acumulado;
+	}
+
+	/**
+	 * @see #analisar(CharSequence, int, int)
+	 */
+	private static long analisar(ByteBuffer buffer, int inicio, int fim) {
+		if (inicio >= fim) {
+			return INVALIDO;
+		}
+		byte primeiro = buffer.get(inicio);
+		boolean negativo = primeiro == '-';
+		int i = negativo || primeiro == '+' ? inicio + 1 : inicio;
+		if (i == fim) {
+			return INVALIDO;
+		}
+		long limite = negativo ? Integer.MIN_VALUE : -Integer.MAX_VALUE;
+		long acumulado = 0;
+		for (; i < fim; i++) {
+			int digito = buffer.get(i) - '0';
+			if (digito < 0 || digito > 9) {
+				return INVALIDO;
+			}
+			acumulado = acumulado * 10 - digito;
+			if (acumulado < limite) {
+				return INVALIDO;
+			}
+		}
+		return negativo ? acumulado : -acumulado;
+	}
+
 	public static void main(String[] args) {
 		new Calculadora().divide("a", "b");
 	}
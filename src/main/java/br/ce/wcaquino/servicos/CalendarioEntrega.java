@@ -0,0 +1,118 @@
+package br.ce.wcaquino.servicos;
+
+import br.ce.wcaquino.utils.DataUtils;
+import lombok.Getter;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Dias uteis de entrega de uma regiao: todos os dias, exceto domingos e feriados.
+ * <p>
+ * Para um intervalo de epoch-days definido na criacao, guarda em uma tabela quantos dias
+ * faltam ate o proximo dia util, de forma que {@link #proximoDiaUtil(long)} e uma unica
+ * leitura de array. Fora do intervalo o calculo e feito dia a dia.
+ */
+public class CalendarioEntrega {
+
+    /** Apenas domingos, de um ano atras ate dez anos a frente. */
+    public static final CalendarioEntrega PADRAO =
+            criar("PADRAO", DataUtils.hoje(ZoneId.systemDefault()) - 366, 11 * 366, Collections.emptyList());
+
+    private static final int SALTO_MAXIMO = Byte.MAX_VALUE;
+
+    @Getter
+    private final String regiao;
+    private final long inicio;
+    private final byte[] saltos;
+    private final Set<Long> feriados;
+
+    private CalendarioEntrega(String regiao, long inicio, byte[] saltos, Set<Long> feriados) {
+        this.regiao = regiao;
+        this.inicio = inicio;
+        this.saltos = saltos;
+        this.feriados = feriados;
+    }
+
+    /**
+     * @param regiao   Identificacao da regiao
+     * @param inicio   Primeiro epoch-day da tabela
+     * @param dias     Quantidade de dias pre-calculados
+     * @param feriados Feriados da regiao
+     */
+    public static CalendarioEntrega criar(String regiao, long inicio, int dias, Collection<LocalDate> feriados) {
+        Set<Long> diasFeriado = new HashSet<>();
+        feriados.forEach(feriado -> diasFeriado.add(feriado.toEpochDay()));
+
+        CalendarioEntrega semTabela = new CalendarioEntrega(regiao, inicio, new byte[0], diasFeriado);
+        byte[] saltos = new byte[dias];
+        for (int i = dias - 1; i >= 0; i--) {
+            long dia = inicio + i;
+            int salto;
+            if (semTabela.isDiaUtil(dia)) {
+                salto = 0;
+            } else if (i + 1 < dias && saltos[i + 1] >= 0) {
+                salto = saltos[i + 1] + 1;
+            } else {
+                salto = (int) Math.min(semTabela.calcularProximoDiaUtil(dia) - dia, SALTO_MAXIMO + 1);
+            }
+            saltos[i] = salto > SALTO_MAXIMO ? -1 : (byte) salto;
+        }
+
+        return new CalendarioEntrega(regiao, inicio, saltos, diasFeriado);
+    }
+
+    /**
+     * Le uma lista de feriados, uma data ISO (aaaa-mm-dd) por linha. Linhas em branco
+     * e trechos apos '#' sao ignorados.
+     */
+    public static List<LocalDate> carregarFeriados(Reader origem) throws IOException {
+        List<LocalDate> feriados = new ArrayList<>();
+        BufferedReader leitor = new BufferedReader(origem);
+        String linha;
+        while ((linha = leitor.readLine()) != null) {
+            int comentario = linha.indexOf('#');
+            String data = (comentario >= 0 ? linha.substring(0, comentario) : linha).trim();
+            if (!data.isEmpty()) {
+                feriados.add(LocalDate.parse(data));
+            }
+        }
+        return feriados;
+    }
+
+    public boolean isDiaUtil(long epochDay) {
+        return !DataUtils.verificarDiaSemana(epochDay, Calendar.SUNDAY) && !feriados.contains(epochDay);
+    }
+
+    /**
+     * Retorna o proprio dia, se for util, ou o proximo dia util.
+     *
+     * @param epochDay Dias desde 01/01/1970
+     * @return Epoch-day do dia util
+     */
+    public long proximoDiaUtil(long epochDay) {
+        long indice = epochDay - inicio;
+        if (indice >= 0 && indice < saltos.length && saltos[(int) indice] >= 0) {
+            return epochDay + saltos[(int) indice];
+        }
+        return calcularProximoDiaUtil(epochDay);
+    }
+
+    private long calcularProximoDiaUtil(long epochDay) {
+        long dia = epochDay;
+        while (!isDiaUtil(dia)) {
+            dia++;
+        }
+        return dia;
+    }
+}
@@ -0,0 +1,235 @@
+package br.ce.wcaquino.servicos;
+
+import br.ce.wcaquino.entidades.Usuario;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * {@link EmailService} que enfileira as notificacoes de atraso e as envia em lotes
+ * por uma thread propria, sem bloquear quem notifica; quando a fila esta cheia vale a
+ * {@link PoliticaFilaCheia} configurada.
+ * <p>
+ * Cada {@link #novaRodada()} devolve um {@link EmailService} com a propria deduplicacao,
+ * que notifica cada usuario uma unica vez na rodada; rodadas simultaneas compartilham a
+ * fila mas nao interferem uma na outra. Chamadas direto no despachante nao deduplicam.
+ */
+public class DespachanteEmail implements EmailService, AutoCloseable {
+
+    public enum PoliticaFilaCheia {
+        /** Descarta a notificacao nova. */
+        DESCARTAR,
+        /** Descarta a notificacao mais antiga da fila para abrir espaco. */
+        DESCARTAR_MAIS_ANTIGA,
+        /** Envia a notificacao na thread de quem chamou. */
+        EXECUTAR_NO_CHAMADOR
+    }
+
+    private final EmailService delegado;
+    private final BlockingQueue<Notificacao> fila;
+    private final int tamanhoLote;
+    private final PoliticaFilaCheia politica;
+    private final Thread despachante;
+    private volatile boolean fechado;
+    private final AtomicInteger notificando = new AtomicInteger();
+
+    private final LongAdder duplicadas = new LongAdder();
+    private final LongAdder descartadas = new LongAdder();
+    private final LongAdder enviadas = new LongAdder();
+    private final LongAdder falhas = new LongAdder();
+
+    public DespachanteEmail(EmailService delegado, int capacidadeFila, int tamanhoLote, PoliticaFilaCheia politica) {
+        if (tamanhoLote <= 0) {
+            throw new IllegalArgumentException("Tamanho do lote deve ser positivo");
+        }
+        this.delegado = delegado;
+        this.fila = new ArrayBlockingQueue<>(capacidadeFila);
+        this.tamanhoLote = tamanhoLote;
+        this.politica = politica;
+        this.despachante = new Thread(this::despachar, "despachante-email");
+        this.despachante.setDaemon(true);
+        this.despachante.start();
+    }
+
+    /**
+     * Abre uma rodada de notificacoes: o {@link EmailService} devolvido notifica cada usuario
+     * uma unica vez, independente das demais rodadas.
+     */
+    public EmailService novaRodada() {
+        return new Rodada();
+    }
+
+    @Override
+    public void notificarAtraso(Usuario usuario) {
+        notificar(new Notificacao(usuario, null));
+    }
+
+    private void notificar(Notificacao notificacao) {
+        notificando.incrementAndGet();
+        try {
+            if (fechado) {
+                throw new IllegalStateException("Despachante fechado");
+            }
+            enfileirar(notificacao);
+        } finally {
+            notificando.decrementAndGet();
+        }
+    }
+
+    private void enfileirar(Notificacao notificacao) {
+        if (notificacao.rodada != null && !notificacao.rodada.notificados.add(notificacao.usuario)) {
+            duplicadas.increment();
+            return;
+        }
+
+        if (fila.offer(notificacao)) {
+            return;
+        }
+
+        switch (politica) {
+            case DESCARTAR_MAIS_ANTIGA:
+                while (!fila.offer(notificacao)) {
+                    Notificacao descartada = fila.poll();
+                    if (descartada != null) {
+                        // sem isso o descartado ficaria sem notificacao no resto da rodada
+                        descartada.liberar();
+                        descartadas.increment();
+                    }
+                }
+                break;
+            case EXECUTAR_NO_CHAMADOR:
+                enviar(List.of(notificacao.usuario));
+                break;
+            default:
+                notificacao.liberar();
+                descartadas.increment();
+        }
+    }
+
+    @Override
+    public void notificarAtrasos(Collection<Usuario> usuarios) {
+        usuarios.forEach(this::notificarAtraso);
+    }
+
+    public long getDuplicadas() {
+        return duplicadas.sum();
+    }
+
+    public long getDescartadas() {
+        return descartadas.sum();
+    }
+
+    public long getEnviadas() {
+        return enviadas.sum();
+    }
+
+    public long getFalhas() {
+        return falhas.sum();
+    }
+
+    public int getPendentes() {
+        return fila.size();
+    }
+
+    /**
+     * Para de aceitar notificacoes e aguarda o envio das que ja estao na fila.
+     */
+    @Override
+    public void close() {
+        fechado = true;
+        // quem ja passou pela verificacao de fechado termina de enfileirar antes do ultimo envio
+        while (notificando.get() > 0) {
+            LockSupport.parkNanos(TimeUnit.MICROSECONDS.toNanos(50));
+        }
+        boolean interrompido = false;
+        while (despachante.isAlive()) {
+            try {
+                despachante.join();
+            } catch (InterruptedException e) {
+                interrompido = true;
+            }
+        }
+        List<Notificacao> restantes = new ArrayList<>(tamanhoLote);
+        while (fila.drainTo(restantes, tamanhoLote) > 0) {
+            enviarLote(restantes);
+        }
+        if (interrompido) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void despachar() {
+        List<Notificacao> lote = new ArrayList<>(tamanhoLote);
+        try {
+            while (!fechado || !fila.isEmpty()) {
+                Notificacao primeira = fila.poll(100, TimeUnit.MILLISECONDS);
+                if (primeira == null) {
+                    continue;
+                }
+                lote.add(primeira);
+                fila.drainTo(lote, tamanhoLote - 1);
+                enviarLote(lote);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void enviarLote(List<Notificacao> lote) {
+        List<Usuario> usuarios = new ArrayList<>(lote.size());
+        lote.forEach(notificacao -> usuarios.add(notificacao.usuario));
+        enviar(usuarios);
+        lote.clear();
+    }
+
+    private void enviar(List<Usuario> lote) {
+        try {
+            delegado.notificarAtrasos(lote);
+            enviadas.add(lote.size());
+        } catch (RuntimeException e) {
+            falhas.add(lote.size());
+        }
+    }
+
+    /**
+     * Escopo de deduplicacao de uma rodada.
+     */
+    private final class Rodada implements EmailService {
+
+        private final Set<Usuario> notificados = ConcurrentHashMap.newKeySet();
+
+        @Override
+        public void notificarAtraso(Usuario usuario) {
+            notificar(new Notificacao(usuario, this));
+        }
+    }
+
+    private static final class Notificacao {
+
+        private final Usuario usuario;
+        private final Rodada rodada;
+
+        Notificacao(Usuario usuario, Rodada rodada) {
+            this.usuario = usuario;
+            this.rodada = rodada;
+        }
+
+        /**
+         * Libera o usuario para ser notificado de novo na rodada, quando esta notificacao e descartada.
+         */
+        void liberar() {
+            if (rodada != null) {
+                rodada.notificados.remove(usuario);
+            }
+        }
+    }
+}
@@ -2,7 +2,17 @@ package br.ce.wcaquino.servicos;
 
 import br.ce.wcaquino.entidades.Usuario;
 
+import java.util.Collection;
+
 public interface EmailService {
 
     void notificarAtraso(Usuario usuario);
+
+    /**
+     * Envia as notificacoes de atraso em lote. Provedores com envio em massa devem
+     * sobrescrever este metodo; o padrao faz um envio por usuario.
+     */
+    default void notificarAtrasos(Collection<Usuario> usuarios) {
+        usuarios.forEach(this::notificarAtraso);
+    }
 }
@@ -0,0 +1,10 @@
+package br.ce.wcaquino.servicos;
+
+public enum EstadoCircuito {
+    /** Chamadas passam normalmente. */
+    FECHADO,
+    /** Chamadas falham na hora, sem chegar ao SPC. */
+    ABERTO,
+    /** Uma unica chamada de teste decide se o circuito fecha ou volta a abrir. */
+    SEMI_ABERTO
+}
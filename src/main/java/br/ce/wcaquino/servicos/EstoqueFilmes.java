@@ -0,0 +1,88 @@
+package br.ce.wcaquino.servicos;
+
+import br.ce.wcaquino.entidades.Filme;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Controle de estoque compartilhado entre os alugueis. Cada filme, identificado pelo
+ * nome, tem o proprio contador atomico, decrementado com CAS; copias diferentes de
+ * {@link Filme} com o mesmo nome disputam o mesmo contador. Um carrinho e reservado
+ * por inteiro ou, se faltar algum filme, as copias ja separadas sao devolvidas.
+ * <p>
+ * So filmes registrados tem estoque: os demais sao recusados na reserva, sem criar contador.
+ */
+public class EstoqueFilmes {
+
+    private final ConcurrentMap<String, AtomicInteger> disponiveis = new ConcurrentHashMap<>();
+
+    public void registrar(Filme filme, int quantidade) {
+        disponiveis.put(filme.getNome(), new AtomicInteger(quantidade));
+    }
+
+    /**
+     * @return Copias disponiveis, ou 0 se o filme nao foi registrado
+     */
+    public int disponivel(Filme filme) {
+        AtomicInteger contador = disponiveis.get(filme.getNome());
+        return contador == null ? 0 : contador.get();
+    }
+
+    public ReservaEstoque reservar(List<Filme> filmes) {
+        Map<String, Integer> quantidades = new LinkedHashMap<>();
+        for (Filme filme : filmes) {
+            quantidades.merge(filme.getNome(), 1, Integer::sum);
+        }
+
+        List<Map.Entry<String, Integer>> reservados = new ArrayList<>(quantidades.size());
+        for (Map.Entry<String, Integer> item : quantidades.entrySet()) {
+            AtomicInteger contador = disponiveis.get(item.getKey());
+            if (contador == null || !decrementar(contador, item.getValue())) {
+                reservados.forEach(reservado -> contador(reservado.getKey()).addAndGet(reservado.getValue()));
+                return ReservaEstoque.semEstoque(primeiroComNome(filmes, item.getKey()));
+            }
+            reservados.add(item);
+        }
+
+        return ReservaEstoque.confirmada(quantidades);
+    }
+
+    public void liberar(ReservaEstoque reserva) {
+        reserva.getQuantidades().forEach((nome, quantidade) -> contador(nome).addAndGet(quantidade));
+    }
+
+    private AtomicInteger contador(String nome) {
+        AtomicInteger contador = disponiveis.get(nome);
+        if (contador == null) {
+            throw new IllegalStateException("Filme nao registrado no estoque: " + nome);
+        }
+        return contador;
+    }
+
+    private static Filme primeiroComNome(List<Filme> filmes, String nome) {
+        for (Filme filme : filmes) {
+            if (filme.getNome().equals(nome)) {
+                return filme;
+            }
+        }
+        throw new IllegalStateException("Filme fora do carrinho: " + nome);
+    }
+
+    private static boolean decrementar(AtomicInteger contador, int quantidade) {
+        while (true) {
+            int atual = contador.get();
+            if (atual < quantidade) {
+                return false;
+            }
+            if (contador.compareAndSet(atual, atual - quantidade)) {
+                return true;
+            }
+        }
+    }
+}
@@ -1,114 +1,485 @@
 package br.ce.wcaquino.servicos;
 
+import br.ce.wcaquino.daos.CatalogoFilmes;
 import br.ce.wcaquino.daos.LocacaoDAO;
 import br.ce.wcaquino.entidades.Filme;
 import br.ce.wcaquino.entidades.Locacao;
+import br.ce.wcaquino.entidades.PedidoLocacao;
+import br.ce.wcaquino.entidades.Prorrogacao;
 import br.ce.wcaquino.entidades.Usuario;
 import br.ce.wcaquino.exceptions.FilmeSemEstoqueException;
 import br.ce.wcaquino.exceptions.LocadoraException;
+import br.ce.wcaquino.metricas.Fase;
+import br.ce.wcaquino.metricas.MetricasLocacao;
+import br.ce.wcaquino.metricas.MetricasOperacao;
 import br.ce.wcaquino.utils.DataUtils;
+import br.ce.wcaquino.utils.Executores;
+import br.ce.wcaquino.utils.LimitadorTaxa;
 import lombok.RequiredArgsConstructor;
+import lombok.Setter;
 
-import java.util.Calendar;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.Date;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Objects;
-import java.util.stream.IntStream;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
 
-import static br.ce.wcaquino.utils.DataUtils.adicionarDias;
+import static br.ce.wcaquino.utils.DataUtils.adicionarDiasMilis;
 
 @RequiredArgsConstructor
 public class LocacaoService {
 
+    private static final ExecutorService EXECUTOR_NOTIFICACOES = Executores.novoExecutorPorTarefa();
+
     private final LocacaoDAO locacaoDAO;
     private final SPCService spcService;
     private final EmailService emailService;
 
+    /**
+     * Estoque compartilhado; quando ausente vale apenas o estoque informado no proprio {@link Filme}.
+     */
+    @Setter
+    private EstoqueFilmes estoque;
+
+    @Setter
+    private CalendarioEntrega calendarioEntrega = CalendarioEntrega.PADRAO;
+
+    /** Fuso das datas de locacao e de retorno. */
+    @Setter
+    private ZoneId fuso = ZoneId.systemDefault();
+
+    @Setter
+    private MotorPrecificacao motorPrecificacao = MotorPrecificacao.PADRAO;
+
+    @Setter
+    private CatalogoFilmes catalogo;
+
+    /**
+     * Executor dos envios de {@link #notificarAtrasosEmParalelo}; o padrao e compartilhado
+     * por todas as instancias, com uma thread por tarefa.
+     */
+    @Setter
+    private ExecutorService executorNotificacoes = EXECUTOR_NOTIFICACOES;
+
+    /**
+     * Abre o {@link EmailService} de cada rodada de notificacao de atrasos, por exemplo
+     * {@code despachante::novaRodada}; sem ele todas as rodadas usam o {@code emailService}.
+     */
+    @Setter
+    private Supplier<? extends EmailService> rodadasEmail;
+
+    @Setter
+    private MetricasLocacao metricas = MetricasLocacao.DESLIGADA;
+
     public Locacao alugarFilme(Usuario usuario, List<Filme> filmes) throws Exception {
+        return tentarAlugarFilme(usuario, filmes).obterLocacao();
+    }
+
+    /**
+     * Como {@link #alugarFilme}, mas as recusas de negocio voltam como
+     * {@link ResultadoAluguel.Rejeicao}, sem criar excecao. Falhas ao salvar continuam sendo lancadas.
+     */
+    public ResultadoAluguel tentarAlugarFilme(Usuario usuario, List<Filme> filmes) {
+        MetricasOperacao medicao = metricas.getAluguel();
+        long inicio = medicao.iniciar();
+        try {
+            MotivoRejeicao motivo = verificar(usuario, filmes);
+            if (motivo != null) {
+                return rejeitar(medicao, inicio, motivo);
+            }
+            long fase = medicao.registrar(Fase.VALIDACAO, inicio);
+
+            motivo = consultarSPC(usuario);
+            if (motivo != null) {
+                return rejeitar(medicao, inicio, motivo);
+            }
+            fase = medicao.registrar(Fase.SPC, fase);
+
+            ReservaEstoque reserva = estoque == null ? null : estoque.reservar(filmes);
+            if (reserva != null && !reserva.isConfirmada()) {
+                return rejeitar(medicao, inicio, MotivoRejeicao.FILME_SEM_ESTOQUE);
+            }
+            fase = medicao.registrar(Fase.ESTOQUE, fase);
+
+            Locacao locacao = novaLocacao(usuario, filmes);
+            precificar(locacao);
+            fase = medicao.registrar(Fase.PRECIFICACAO, fase);
+            definirDatas(locacao);
+            fase = medicao.registrar(Fase.DATAS, fase);
+
+            //Salvando a locacao...
+            try {
+                locacaoDAO.salvar(locacao);
+            } catch (RuntimeException e) {
+                liberarEstoque(reserva);
+                throw e;
+            }
+            medicao.registrar(Fase.PERSISTENCIA, fase);
+
+            medicao.sucesso(inicio);
+            return ResultadoAluguel.sucesso(locacao);
+        } catch (RuntimeException e) {
+            medicao.erro(inicio);
+            throw e;
+        }
+    }
+
+    private static ResultadoAluguel rejeitar(MetricasOperacao medicao, long inicio, MotivoRejeicao motivo) {
+        medicao.rejeicao(inicio);
+        return ResultadoAluguel.rejeicao(motivo);
+    }
+
+    /**
+     * Aluga filmes do {@link CatalogoFilmes} pelo id. A locacao guarda apenas os ids,
+     * sem instancias de {@link Filme}.
+     */
+    public Locacao alugarFilmesDoCatalogo(Usuario usuario, int... idsFilmes) throws Exception {
+        if (catalogo == null) {
+            throw new IllegalStateException("Catalogo de filmes nao configurado");
+        }
         if (usuario == null) {
-            throw new LocadoraException("Usuario vazio");
+            MotivoRejeicao.USUARIO_VAZIO.lancar();
+        }
+        if (idsFilmes == null || idsFilmes.length == 0) {
+            MotivoRejeicao.FILME_VAZIO.lancar();
+        }
+        MotivoRejeicao motivo = consultarSPC(usuario);
+        if (motivo != null) {
+            motivo.lancar();
+        }
+
+        if (catalogo.reservarTodos(idsFilmes) >= 0) {
+            MotivoRejeicao.FILME_SEM_ESTOQUE.lancar();
+        }
+
+        long valorCentavos = 0;
+        for (int i = 0; i < idsFilmes.length; i++) {
+            valorCentavos += motorPrecificacao.aplicar(i, catalogo.precoCentavos(idsFilmes[i]));
+        }
+
+        Locacao locacao = new Locacao();
+        locacao.setUsuario(usuario);
+        locacao.setIdsFilmes(idsFilmes.clone());
+        locacao.setValor(valorCentavos / 100.0);
+        definirDatas(locacao);
+
+        try {
+            locacaoDAO.salvar(locacao);
+        } catch (RuntimeException e) {
+            catalogo.devolverTodos(idsFilmes, idsFilmes.length);
+            throw e;
+        }
+
+        return locacao;
+    }
+
+    public List<ResultadoLocacao> alugarFilmes(List<PedidoLocacao> pedidos) {
+        ResultadoLocacao[] resultados = new ResultadoLocacao[pedidos.size()];
+        List<Integer> validos = new ArrayList<>();
+        Set<Usuario> usuarios = new LinkedHashSet<>();
+
+        for (int i = 0; i < pedidos.size(); i++) {
+            PedidoLocacao pedido = pedidos.get(i);
+            try {
+                validar(pedido.getUsuario(), pedido.getFilmes());
+                validos.add(i);
+                usuarios.add(pedido.getUsuario());
+            } catch (Exception e) {
+                resultados[i] = ResultadoLocacao.falha(pedido, e);
+            }
+        }
+
+        Set<Usuario> negativados;
+
+        try {
+            negativados = usuarios.isEmpty() ? Collections.emptySet() : spcService.obterNegativados(usuarios);
+        } catch (Exception e) {
+            Exception erroSpc = MotivoRejeicao.SPC_INDISPONIVEL.getExcecao();
+            validos.forEach(i -> resultados[i] = ResultadoLocacao.falha(pedidos.get(i), erroSpc));
+            return Arrays.asList(resultados);
+        }
+
+        List<Integer> aprovados = new ArrayList<>();
+        List<Locacao> locacoes = new ArrayList<>();
+        List<ReservaEstoque> reservas = new ArrayList<>();
+
+        for (Integer i : validos) {
+            PedidoLocacao pedido = pedidos.get(i);
+            if (negativados.contains(pedido.getUsuario())) {
+                resultados[i] = ResultadoLocacao.falha(pedido, MotivoRejeicao.USUARIO_NEGATIVADO.getExcecao());
+                continue;
+            }
+            try {
+                reservas.add(reservarEstoque(pedido.getFilmes()));
+                aprovados.add(i);
+                locacoes.add(criarLocacao(pedido.getUsuario(), pedido.getFilmes()));
+            } catch (FilmeSemEstoqueException e) {
+                resultados[i] = ResultadoLocacao.falha(pedido, e);
+            }
+        }
+
+        try {
+            if (!locacoes.isEmpty()) {
+                locacaoDAO.salvarTodos(locacoes);
+            }
+            for (int j = 0; j < aprovados.size(); j++) {
+                int i = aprovados.get(j);
+                resultados[i] = ResultadoLocacao.sucesso(pedidos.get(i), locacoes.get(j));
+            }
+        } catch (Exception e) {
+            reservas.forEach(this::liberarEstoque);
+            aprovados.forEach(i -> resultados[i] = ResultadoLocacao.falha(pedidos.get(i), e));
+        }
+
+        return Arrays.asList(resultados);
+    }
+
+    void validar(Usuario usuario, List<Filme> filmes) throws LocadoraException, FilmeSemEstoqueException {
+        MotivoRejeicao motivo = verificar(usuario, filmes);
+        if (motivo != null) {
+            motivo.lancar();
+        }
+    }
+
+    static MotivoRejeicao verificar(Usuario usuario, List<Filme> filmes) {
+        if (usuario == null) {
+            return MotivoRejeicao.USUARIO_VAZIO;
         }
 
         if (Objects.isNull(filmes) || filmes.isEmpty()) {
-            throw new LocadoraException("Filme vazio");
+            return MotivoRejeicao.FILME_VAZIO;
         }
 
         if(filmes.stream().anyMatch(filme -> filme.getEstoque().equals(0))){
-            throw new FilmeSemEstoqueException();
+            return MotivoRejeicao.FILME_SEM_ESTOQUE;
         }
+        return null;
+    }
+
+    Set<Usuario> consultarNegativados(Collection<Usuario> usuarios) throws Exception {
+        return spcService.obterNegativados(usuarios);
+    }
 
-        boolean negativado;
+    void salvarLote(List<Locacao> locacoes) {
+        locacaoDAO.salvarTodos(locacoes);
+    }
 
+    private MotivoRejeicao consultarSPC(Usuario usuario) {
         try {
-            negativado = spcService.pussuiNegativacao(usuario);
+            return spcService.pussuiNegativacao(usuario) ? MotivoRejeicao.USUARIO_NEGATIVADO : null;
         } catch (Exception e) {
-            throw new LocadoraException("Problemas com o SPC, tente novamente");
+            return MotivoRejeicao.SPC_INDISPONIVEL;
+        }
+    }
+
+    ReservaEstoque reservarEstoque(List<Filme> filmes) throws FilmeSemEstoqueException {
+        if (estoque == null) {
+            return null;
+        }
+        ReservaEstoque reserva = estoque.reservar(filmes);
+        if (!reserva.isConfirmada()) {
+            throw MotivoRejeicao.filmeSemEstoque();
         }
+        return reserva;
+    }
 
-        if (negativado) {
-            throw new LocadoraException("Usuario negativado");
+    void liberarEstoque(ReservaEstoque reserva) {
+        if (reserva != null) {
+            estoque.liberar(reserva);
         }
+    }
+
+    /**
+     * Locacao com valor e datas, sem metricas por fase: as fases de {@code locacao_alugar}
+     * sao medidas apenas em {@link #tentarAlugarFilme}, para que os caminhos em lote,
+     * assincrono e em pipeline nao misturem suas medicoes no mesmo histograma.
+     */
+    Locacao criarLocacao(Usuario usuario, List<Filme> filmes) {
+        Locacao locacao = novaLocacao(usuario, filmes);
+        precificar(locacao);
+        definirDatas(locacao);
+        return locacao;
+    }
 
+    private static Locacao novaLocacao(Usuario usuario, List<Filme> filmes) {
         Locacao locacao = new Locacao();
         locacao.setFilmes(filmes);
         locacao.setUsuario(usuario);
-        locacao.setDataLocacao(new Date());
+        return locacao;
+    }
 
-        double valorTotal = IntStream.range(0, filmes.size())
-                .mapToDouble(i -> {
-                    double valorFilme = filmes.get(i).getPrecoLocacao();
-                    switch (i) {
-                        case 2:
-                            valorFilme *= 0.75;
-                            break;
-                        case 3:
-                            valorFilme *= 0.5;
-                            break;
-                        case 4:
-                            valorFilme *= 0.25;
-                            break;
-                        case 5:
-                            valorFilme = 0d;
-                            break;
-                    }
-                    return valorFilme;
+    private void precificar(Locacao locacao) {
+        locacao.setValor(motorPrecificacao.calcularCentavos(locacao.getFilmes()) / 100.0);
+    }
 
-                }).sum();
+    private void definirDatas(Locacao locacao) {
+        long agora = System.currentTimeMillis();
+        locacao.setDataLocacao(new Date(agora));
 
-        locacao.setValor(valorTotal);
+        //Entrega no proximo dia util a partir de amanha
+        long hoje = DataUtils.epochDay(agora, fuso);
+        long diaEntrega = calendarioEntrega.proximoDiaUtil(hoje + 1);
 
-        //Entrega no dia seguinte
-        Date dataEntrega = new Date();
-        dataEntrega = adicionarDias(dataEntrega, 1);
+        locacao.setDataRetorno(new Date(adicionarDiasMilis(agora, (int) (diaEntrega - hoje), fuso)));
+    }
 
-        if (DataUtils.verificarDiaSemana(dataEntrega, Calendar.SUNDAY)) {
-            dataEntrega = adicionarDias(dataEntrega, 1);
+    public void notificarAtrasos() {
+        MetricasOperacao medicao = metricas.getNotificacao();
+        EmailService rodada = abrirRodadaNotificacoes();
+        long inicio = medicao.iniciar();
+        try (Stream<Locacao> atrasadas = locacaoDAO.obterLocacoesAtrasadas(Instant.now())) {
+            // o stream e preguicoso: a consulta acontece a cada next(), entre os envios
+            long consulta = 0;
+            long fase = inicio;
+            Iterator<Locacao> iterador = atrasadas.iterator();
+            while (iterador.hasNext()) {
+                Locacao locacao = iterador.next();
+                long envio = medicao.iniciar();
+                consulta += envio - fase;
+                rodada.notificarAtraso(locacao.getUsuario());
+                fase = medicao.registrar(Fase.NOTIFICACAO, envio);
+            }
+            medicao.registrarDuracao(Fase.CONSULTA, consulta + medicao.iniciar() - fase);
+        } catch (RuntimeException e) {
+            medicao.erro(inicio);
+            throw e;
         }
+        medicao.sucesso(inicio);
+    }
 
-        locacao.setDataRetorno(dataEntrega);
+    EmailService abrirRodadaNotificacoes() {
+        return rodadasEmail == null ? emailService : rodadasEmail.get();
+    }
 
-        //Salvando a locacao...
-        locacaoDAO.salvar(locacao);
+    Stream<Locacao> obterLocacoesAtrasadas() {
+        return locacaoDAO.obterLocacoesAtrasadas(Instant.now());
+    }
 
-        return locacao;
+    void notificarAtraso(Locacao locacao, EmailService rodada) {
+        rodada.notificarAtraso(locacao.getUsuario());
     }
 
-    public void notificarAtrasos() {
-        List<Locacao> locacoes = locacaoDAO.obterLocacoesPendentes();
+    /**
+     * Percorre as locacoes atrasadas pelo indice de vencimento com {@code trabalhadores}
+     * tarefas que consomem a mesma consulta, respeitando um limite global de notificacoes
+     * por segundo no {@link EmailService}.
+     */
+    public ResumoNotificacao notificarAtrasosEmParalelo(int trabalhadores, double notificacoesPorSegundo)
+            throws InterruptedException {
+        long inicio = System.nanoTime();
+        LimitadorTaxa limitador = new LimitadorTaxa(notificacoesPorSegundo);
+        EmailService rodada = abrirRodadaNotificacoes();
+        LongAdder atrasadas = new LongAdder();
+        LongAdder notificadas = new LongAdder();
+        LongAdder falhas = new LongAdder();
+
+        try (Stream<Locacao> consulta = locacaoDAO.obterLocacoesAtrasadas(Instant.now())) {
+            // os trabalhadores consomem o mesmo iterador, sem materializar a consulta
+            Iterator<Locacao> iterador = consulta.iterator();
+            List<Future<?>> envios = new ArrayList<>(trabalhadores);
+            try {
+                for (int i = 0; i < trabalhadores; i++) {
+                    envios.add(executorNotificacoes.submit(() -> {
+                        Locacao locacao;
+                        while ((locacao = proxima(iterador)) != null) {
+                            atrasadas.increment();
+                            limitador.adquirir();
+                            try {
+                                rodada.notificarAtraso(locacao.getUsuario());
+                                notificadas.increment();
+                            } catch (RuntimeException e) {
+                                falhas.increment();
+                            }
+                        }
+                    }));
+                }
+                for (Future<?> envio : envios) {
+                    envio.get();
+                }
+            } catch (ExecutionException e) {
+                throw new IllegalStateException("Falha ao notificar locacoes atrasadas", e.getCause());
+            } finally {
+                // em caso de falha ou interrupcao, nenhum trabalhador continua depois do retorno
+                envios.forEach(envio -> envio.cancel(true));
+            }
+        }
+
+        return new ResumoNotificacao(atrasadas.sum(), notificadas.sum(), falhas.sum(),
+                Duration.ofNanos(System.nanoTime() - inicio));
+    }
 
-        locacoes.forEach(locacao -> {
-            if (locacao.getDataRetorno().before(new Date()))
-                emailService.notificarAtraso(locacao.getUsuario());
-        });
+    private static Locacao proxima(Iterator<Locacao> iterador) {
+        synchronized (iterador) {
+            return iterador.hasNext() ? iterador.next() : null;
+        }
     }
 
     public void prorrogarLocacao(Locacao locacao, int dias) {
+        MetricasOperacao medicao = metricas.getProrrogacao();
+        long inicio = medicao.iniciar();
+        try {
+            Locacao novaLocacao = criarProrrogacao(locacao, dias);
+            long fase = medicao.registrar(Fase.DATAS, inicio);
+            locacaoDAO.salvar(novaLocacao);
+            medicao.registrar(Fase.PERSISTENCIA, fase);
+        } catch (RuntimeException e) {
+            medicao.erro(inicio);
+            throw e;
+        }
+        medicao.sucesso(inicio);
+    }
+
+    /**
+     * Prorroga varias locacoes de uma vez, estendendo a data de retorno atual de cada uma em
+     * {@code dias}. Cada prorrogacao e registrada no DAO como alteracao versionada da locacao
+     * original, e nao como uma nova locacao, em uma unica gravacao.
+     *
+     * @return Apenas as prorrogacoes aplicadas pelo DAO; locacoes ja devolvidas ou alteradas
+     * por outra prorrogacao ficam de fora
+     */
+    public List<Prorrogacao> prorrogarLocacoes(List<Locacao> locacoes, int dias) {
+        MetricasOperacao medicao = metricas.getProrrogacao();
+        long inicio = medicao.iniciar();
+        try {
+            List<Prorrogacao> prorrogacoes = new ArrayList<>(locacoes.size());
+            for (Locacao locacao : locacoes) {
+                Date dataRetorno = new Date(adicionarDiasMilis(locacao.getDataRetorno().getTime(), dias, fuso));
+                prorrogacoes.add(new Prorrogacao(locacao, locacao.getVersao() + 1, dataRetorno, locacao.getValor() * dias));
+            }
+            long fase = medicao.registrar(Fase.DATAS, inicio);
+            List<Prorrogacao> aplicadas = locacaoDAO.registrarProrrogacoes(prorrogacoes);
+            medicao.registrar(Fase.PERSISTENCIA, fase);
+            medicao.sucesso(inicio);
+            return aplicadas;
+        } catch (RuntimeException e) {
+            medicao.erro(inicio);
+            throw e;
+        }
+    }
+
+    private Locacao criarProrrogacao(Locacao locacao, int dias) {
         Locacao novaLocacao = new Locacao();
         novaLocacao.setUsuario(locacao.getUsuario());
         novaLocacao.setFilmes(locacao.getFilmes());
-        novaLocacao.setDataLocacao(new Date());
-        novaLocacao.setDataRetorno(DataUtils.obterDataComDiferencaDias(dias));
+        novaLocacao.setIdsFilmes(locacao.getIdsFilmes());
+        long agora = System.currentTimeMillis();
+        novaLocacao.setDataLocacao(new Date(agora));
+        novaLocacao.setDataRetorno(new Date(adicionarDiasMilis(agora, dias, fuso)));
         novaLocacao.setValor(locacao.getValor() * dias);
-        locacaoDAO.salvar(novaLocacao);
+        return novaLocacao;
     }
 }
\ No newline at end of file
@@ -0,0 +1,84 @@
+package br.ce.wcaquino.servicos;
+
+import br.ce.wcaquino.daos.LocacaoDAO;
+import br.ce.wcaquino.daos.LocacaoDAOAsync;
+import br.ce.wcaquino.entidades.Filme;
+import br.ce.wcaquino.entidades.Locacao;
+import br.ce.wcaquino.entidades.Usuario;
+import br.ce.wcaquino.exceptions.FilmeSemEstoqueException;
+import br.ce.wcaquino.utils.Executores;
+import lombok.AccessLevel;
+import lombok.RequiredArgsConstructor;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+
+/**
+ * Variante nao bloqueante de {@link LocacaoService#alugarFilme}. As regras de validacao,
+ * preco e data de entrega sao as mesmas; as falhas completam o futuro com as mesmas
+ * excecoes lancadas pela versao sincrona.
+ */
+@RequiredArgsConstructor(access = AccessLevel.PRIVATE)
+public class LocacaoServiceAsync implements AutoCloseable {
+
+    private final LocacaoService locacaoService;
+    private final SPCServiceAsync spcService;
+    private final LocacaoDAOAsync locacaoDAO;
+    private final ExecutorService executor;
+
+    public LocacaoServiceAsync(LocacaoService locacaoService, SPCServiceAsync spcService, LocacaoDAOAsync locacaoDAO) {
+        this(locacaoService, spcService, locacaoDAO, null);
+    }
+
+    /**
+     * Cria o servico assincrono sobre implementacoes bloqueantes, executando as chamadas
+     * ao SPC e ao DAO em threads virtuais quando a JVM oferecer suporte.
+     */
+    public static LocacaoServiceAsync criar(LocacaoDAO locacaoDAO, SPCService spcService, EmailService emailService) {
+        ExecutorService executor = Executores.novoExecutorPorTarefa();
+        return new LocacaoServiceAsync(new LocacaoService(locacaoDAO, spcService, emailService),
+                SPCServiceAsync.adaptar(spcService, executor), LocacaoDAOAsync.adaptar(locacaoDAO, executor), executor);
+    }
+
+    public CompletableFuture<Locacao> alugarFilme(Usuario usuario, List<Filme> filmes) {
+        try {
+            locacaoService.validar(usuario, filmes);
+        } catch (Exception e) {
+            return CompletableFuture.failedFuture(e);
+        }
+
+        return spcService.pussuiNegativacao(usuario)
+                .handle((negativado, erro) -> {
+                    if (erro != null) {
+                        throw new CompletionException(MotivoRejeicao.SPC_INDISPONIVEL.getExcecao());
+                    }
+                    if (negativado) {
+                        throw new CompletionException(MotivoRejeicao.USUARIO_NEGATIVADO.getExcecao());
+                    }
+                    try {
+                        return locacaoService.reservarEstoque(filmes);
+                    } catch (FilmeSemEstoqueException e) {
+                        throw new CompletionException(e);
+                    }
+                })
+                .thenCompose(reserva -> {
+                    Locacao locacao = locacaoService.criarLocacao(usuario, filmes);
+                    return locacaoDAO.salvar(locacao)
+                            .whenComplete((salvo, erro) -> {
+                                if (erro != null) {
+                                    locacaoService.liberarEstoque(reserva);
+                                }
+                            })
+                            .thenApply(salvo -> locacao);
+                });
+    }
+
+    @Override
+    public void close() {
+        if (executor != null) {
+            executor.shutdown();
+        }
+    }
+}
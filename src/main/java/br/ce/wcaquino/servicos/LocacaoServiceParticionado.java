@@ -0,0 +1,205 @@
+package br.ce.wcaquino.servicos;
+
+import br.ce.wcaquino.entidades.Filme;
+import br.ce.wcaquino.entidades.Locacao;
+import br.ce.wcaquino.entidades.Usuario;
+import br.ce.wcaquino.utils.FilaCircular;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+/**
+ * Encaminha as operacoes de {@link LocacaoService} para particoes de uma unica thread,
+ * escolhidas pelo hash do {@link Usuario}.
+ * <p>
+ * Alugueis, prorrogacoes e notificacoes de um mesmo usuario sempre caem na mesma particao
+ * e sao executados um de cada vez, na ordem em que foram enviados, sem locks. Usuarios
+ * diferentes se espalham pelas particoes, que rodam em paralelo. Cada particao recebe as
+ * tarefas por uma {@link FilaCircular}; com a caixa cheia, quem envia espera ate haver espaco.
+ */
+public class LocacaoServiceParticionado implements AutoCloseable {
+
+    private static final long ESPERA_CAIXA_CHEIA_NANOS = TimeUnit.MICROSECONDS.toNanos(50);
+
+    private final LocacaoService locacaoService;
+    private final Particao[] particoes;
+
+    public LocacaoServiceParticionado(LocacaoService locacaoService) {
+        this(locacaoService, Runtime.getRuntime().availableProcessors(), 1024);
+    }
+
+    /**
+     * @param capacidadeCaixa Tarefas pendentes por particao antes de segurar quem envia
+     */
+    public LocacaoServiceParticionado(LocacaoService locacaoService, int quantidadeParticoes, int capacidadeCaixa) {
+        if (quantidadeParticoes <= 0) {
+            throw new IllegalArgumentException("Quantidade de particoes invalida: " + quantidadeParticoes);
+        }
+        this.locacaoService = locacaoService;
+        this.particoes = new Particao[quantidadeParticoes];
+        for (int i = 0; i < quantidadeParticoes; i++) {
+            particoes[i] = new Particao("locacao-particao-" + i, capacidadeCaixa);
+        }
+        for (Particao particao : particoes) {
+            particao.thread.start();
+        }
+    }
+
+    public CompletableFuture<ResultadoAluguel> tentarAlugarFilme(Usuario usuario, List<Filme> filmes) {
+        return executar(usuario, () -> locacaoService.tentarAlugarFilme(usuario, filmes));
+    }
+
+    /**
+     * Completa com a locacao ou com a mesma excecao lancada por {@link LocacaoService#alugarFilme}.
+     */
+    public CompletableFuture<Locacao> alugarFilme(Usuario usuario, List<Filme> filmes) {
+        return executar(usuario, () -> locacaoService.tentarAlugarFilme(usuario, filmes))
+                .thenCompose(resultado -> resultado.mapear(CompletableFuture::completedFuture,
+                        motivo -> CompletableFuture.failedFuture(motivo.getExcecao())));
+    }
+
+    public CompletableFuture<Void> prorrogarLocacao(Locacao locacao, int dias) {
+        return executar(locacao.getUsuario(), () -> {
+            locacaoService.prorrogarLocacao(locacao, dias);
+            return null;
+        });
+    }
+
+    /**
+     * Consulta as locacoes atrasadas na thread que chamou e envia cada notificacao para a
+     * particao do usuario. Completa quando todas tiverem sido enviadas, ou com o primeiro erro.
+     */
+    public CompletableFuture<Void> notificarAtrasos() {
+        List<CompletableFuture<Void>> envios = new ArrayList<>();
+        EmailService rodada = locacaoService.abrirRodadaNotificacoes();
+        try (Stream<Locacao> atrasadas = locacaoService.obterLocacoesAtrasadas()) {
+            atrasadas.forEach(locacao -> envios.add(executar(locacao.getUsuario(), () -> {
+                locacaoService.notificarAtraso(locacao, rodada);
+                return null;
+            })));
+        }
+        return CompletableFuture.allOf(envios.toArray(new CompletableFuture<?>[0]));
+    }
+
+    public int quantidadeParticoes() {
+        return particoes.length;
+    }
+
+    int particao(Usuario usuario) {
+        if (usuario == null) {
+            return 0;
+        }
+        int hash = usuario.hashCode();
+        // espalha os bits altos para que hashes proximos nao caiam sempre na mesma particao
+        hash ^= hash >>> 16;
+        return Math.floorMod(hash * 0x9E3779B9, particoes.length);
+    }
+
+    /**
+     * Termina as tarefas ja enviadas e encerra as threads das particoes. Novos envios
+     * completam com {@link RejectedExecutionException}.
+     */
+    @Override
+    public void close() {
+        for (Particao particao : particoes) {
+            particao.encerrada = true;
+            LockSupport.unpark(particao.thread);
+        }
+        boolean interrompido = false;
+        for (Particao particao : particoes) {
+            // quem ja passou pela verificacao de encerrada termina de publicar antes do ultimo dreno
+            while (particao.enviando.get() > 0) {
+                LockSupport.unpark(particao.thread);
+                LockSupport.parkNanos(ESPERA_CAIXA_CHEIA_NANOS);
+            }
+            LockSupport.unpark(particao.thread);
+            while (particao.thread.isAlive()) {
+                try {
+                    particao.thread.join();
+                } catch (InterruptedException e) {
+                    interrompido = true;
+                }
+            }
+            Runnable tarefa;
+            while ((tarefa = particao.caixa.retirar()) != null) {
+                tarefa.run();
+            }
+        }
+        if (interrompido) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private <T> CompletableFuture<T> executar(Usuario usuario, Supplier<T> operacao) {
+        CompletableFuture<T> futuro = new CompletableFuture<>();
+        Particao particao = particoes[particao(usuario)];
+        Runnable tarefa = () -> {
+            try {
+                futuro.complete(operacao.get());
+            } catch (Throwable e) {
+                // um Error nao pode derrubar a thread da particao e travar as tarefas seguintes
+                futuro.completeExceptionally(e);
+            }
+        };
+        if (!particao.enviar(tarefa)) {
+            futuro.completeExceptionally(new RejectedExecutionException("Servico particionado encerrado"));
+        }
+        return futuro;
+    }
+
+    private static final class Particao implements Runnable {
+
+        private final FilaCircular<Runnable> caixa;
+        private final Thread thread;
+        private final AtomicInteger enviando = new AtomicInteger();
+        private volatile boolean encerrada;
+
+        Particao(String nome, int capacidade) {
+            this.caixa = new FilaCircular<>(capacidade);
+            this.thread = new Thread(this, nome);
+            thread.setDaemon(true);
+        }
+
+        boolean enviar(Runnable tarefa) {
+            enviando.incrementAndGet();
+            try {
+                if (encerrada) {
+                    return false;
+                }
+                while (!caixa.oferecer(tarefa)) {
+                    LockSupport.unpark(thread);
+                    LockSupport.parkNanos(ESPERA_CAIXA_CHEIA_NANOS);
+                }
+            } finally {
+                enviando.decrementAndGet();
+            }
+            LockSupport.unpark(thread);
+            return true;
+        }
+
+        @Override
+        public void run() {
+            while (true) {
+                Runnable tarefa = caixa.retirar();
+                if (tarefa != null) {
+                    tarefa.run();
+                } else if (encerrada) {
+                    // uma tarefa pode ter sido publicada entre o retirar e a leitura de encerrada
+                    while ((tarefa = caixa.retirar()) != null) {
+                        tarefa.run();
+                    }
+                    return;
+                } else {
+                    LockSupport.park(this);
+                }
+            }
+        }
+    }
+}
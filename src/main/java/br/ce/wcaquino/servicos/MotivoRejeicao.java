@@ -0,0 +1,43 @@
+package br.ce.wcaquino.servicos;
+
+import br.ce.wcaquino.exceptions.FilmeSemEstoqueException;
+import br.ce.wcaquino.exceptions.LocadoraException;
+import lombok.Getter;
+
+/**
+ * Motivos de negocio para recusar um aluguel. Cada motivo tem uma excecao pre-alocada,
+ * sem pilha, usada pelos metodos que sinalizam a recusa lancando excecao.
+ */
+public enum MotivoRejeicao {
+
+    USUARIO_VAZIO(LocadoraException.semPilha("Usuario vazio")),
+    FILME_VAZIO(LocadoraException.semPilha("Filme vazio")),
+    FILME_SEM_ESTOQUE(FilmeSemEstoqueException.semPilha()),
+    USUARIO_NEGATIVADO(LocadoraException.semPilha("Usuario negativado")),
+    SPC_INDISPONIVEL(LocadoraException.semPilha("Problemas com o SPC, tente novamente"));
+
+    @Getter
+    private final Exception excecao;
+
+    MotivoRejeicao(Exception excecao) {
+        this.excecao = excecao;
+    }
+
+    public String getMensagem() {
+        return excecao.getMessage();
+    }
+
+    /**
+     * Excecao pre-alocada de {@link #FILME_SEM_ESTOQUE}, ja com o tipo verificado.
+     */
+    public static FilmeSemEstoqueException filmeSemEstoque() {
+        return (FilmeSemEstoqueException) FILME_SEM_ESTOQUE.excecao;
+    }
+
+    public void lancar() throws LocadoraException, FilmeSemEstoqueException {
+        if (excecao instanceof FilmeSemEstoqueException) {
+            throw (FilmeSemEstoqueException) excecao;
+        }
+        throw (LocadoraException) excecao;
+    }
+}
@@ -0,0 +1,74 @@
+package br.ce.wcaquino.servicos;
+
+import br.ce.wcaquino.entidades.Filme;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Calcula o valor de um carrinho em centavos. As faixas de desconto por posicao do filme
+ * no carrinho sao configuradas como dados e compiladas em uma tabela de fatores (em
+ * pontos-base), consultada sem alocacao durante o calculo.
+ */
+public class MotorPrecificacao {
+
+    private static final long SEM_DESCONTO = 10_000;
+
+    /** 3o filme 25%, 4o 50%, 5o 75% e 6o filme de graca. */
+    public static final MotorPrecificacao PADRAO = comDescontos(new TreeMap<>(Map.of(3, 25, 4, 50, 5, 75, 6, 100)));
+
+    private final long[] fatores;
+
+    private MotorPrecificacao(long[] fatores) {
+        this.fatores = fatores;
+    }
+
+    /**
+     * @param percentualPorPosicao Desconto (0 a 100) por posicao do filme no carrinho,
+     *                             a partir de 1; posicoes ausentes nao tem desconto
+     */
+    public static MotorPrecificacao comDescontos(Map<Integer, Integer> percentualPorPosicao) {
+        int ultimaPosicao = percentualPorPosicao.isEmpty() ? 0 : Collections.max(percentualPorPosicao.keySet());
+        long[] fatores = new long[ultimaPosicao];
+        Arrays.fill(fatores, SEM_DESCONTO);
+
+        percentualPorPosicao.forEach((posicao, percentual) -> {
+            if (posicao < 1) {
+                throw new IllegalArgumentException("Posicao invalida: " + posicao);
+            }
+            if (percentual < 0 || percentual > 100) {
+                throw new IllegalArgumentException("Percentual invalido: " + percentual);
+            }
+            fatores[posicao - 1] = SEM_DESCONTO * (100 - percentual) / 100;
+        });
+
+        return new MotorPrecificacao(fatores);
+    }
+
+    public static long paraCentavos(double valor) {
+        return Math.round(valor * 100);
+    }
+
+    /**
+     * Aplica o desconto da posicao ao preco, arredondando meio centavo para cima.
+     *
+     * @param indice        Posicao do filme no carrinho, a partir de 0
+     * @param precoCentavos Preco do filme em centavos
+     * @return Preco com desconto, em centavos
+     */
+    public long aplicar(int indice, long precoCentavos) {
+        long fator = indice < fatores.length ? fatores[indice] : SEM_DESCONTO;
+        return (precoCentavos * fator + SEM_DESCONTO / 2) / SEM_DESCONTO;
+    }
+
+    public long calcularCentavos(List<Filme> filmes) {
+        long total = 0;
+        for (int i = 0; i < filmes.size(); i++) {
+            total += aplicar(i, paraCentavos(filmes.get(i).getPrecoLocacao()));
+        }
+        return total;
+    }
+}
@@ -0,0 +1,203 @@
+package br.ce.wcaquino.servicos;
+
+import br.ce.wcaquino.entidades.Locacao;
+import br.ce.wcaquino.entidades.PedidoLocacao;
+import br.ce.wcaquino.entidades.Usuario;
+import br.ce.wcaquino.exceptions.FilmeSemEstoqueException;
+import br.ce.wcaquino.utils.EstagioLote;
+import br.ce.wcaquino.utils.Executores;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Flow;
+
+/**
+ * {@link LocacaoService} exposto como um {@link Flow.Processor}: recebe {@link PedidoLocacao}s
+ * e publica um {@link ResultadoLocacao} por pedido, passando pelos estagios
+ * validacao, consulta ao SPC, reserva e preco, e gravacao.
+ * <p>
+ * Cada estagio e um {@link EstagioLote} com demanda limitada: o SPC e consultado com um
+ * {@link SPCService#obterNegativados} por lote e a gravacao usa {@link br.ce.wcaquino.daos.LocacaoDAO#salvarTodos}.
+ * Quando um estagio fica para tras, os anteriores param de pedir pedidos e o produtor
+ * passa a esperar (ou descartar, se usar {@code offer}) em vez de acumular em memoria.
+ * A ordem dos resultados pode diferir da ordem dos pedidos.
+ */
+public class PipelineLocacao implements Flow.Processor<PedidoLocacao, ResultadoLocacao>, AutoCloseable {
+
+    private final LocacaoService servico;
+    private final ExecutorService executor;
+    private final EstagioLote<PedidoLocacao, Pedido> validacao;
+    private final EstagioLote<Pedido, ResultadoLocacao> gravacao;
+
+    public PipelineLocacao(LocacaoService servico, int capacidade) {
+        this(servico, capacidade, 32, 4, 2);
+    }
+
+    /**
+     * @param capacidade               Pedidos em espera permitidos em cada estagio
+     * @param tamanhoLote              Maximo de pedidos por consulta ao SPC e por gravacao
+     * @param concorrenciaSpc          Consultas ao SPC simultaneas
+     * @param concorrenciaGravacao     Gravacoes simultaneas
+     */
+    public PipelineLocacao(LocacaoService servico, int capacidade, int tamanhoLote, int concorrenciaSpc,
+                           int concorrenciaGravacao) {
+        this.servico = servico;
+        this.executor = Executores.novoExecutorPorTarefa();
+
+        validacao = new EstagioLote<>(executor, capacidade, tamanhoLote, 1, this::validar);
+        EstagioLote<Pedido, Pedido> spc =
+                new EstagioLote<>(executor, capacidade, tamanhoLote, concorrenciaSpc, this::consultarSpc);
+        EstagioLote<Pedido, Pedido> preco = new EstagioLote<>(executor, capacidade, tamanhoLote, 1, this::precificar);
+        gravacao = new EstagioLote<>(executor, capacidade, tamanhoLote, concorrenciaGravacao, this::gravar);
+
+        validacao.subscribe(spc);
+        spc.subscribe(preco);
+        preco.subscribe(gravacao);
+    }
+
+    @Override
+    public void onSubscribe(Flow.Subscription assinatura) {
+        validacao.onSubscribe(assinatura);
+    }
+
+    @Override
+    public void onNext(PedidoLocacao pedido) {
+        validacao.onNext(pedido);
+    }
+
+    @Override
+    public void onError(Throwable erro) {
+        validacao.onError(erro);
+    }
+
+    @Override
+    public void onComplete() {
+        validacao.onComplete();
+    }
+
+    @Override
+    public void subscribe(Flow.Subscriber<? super ResultadoLocacao> assinante) {
+        gravacao.subscribe(assinante);
+    }
+
+    @Override
+    public void close() {
+        executor.shutdown();
+    }
+
+    private List<Pedido> validar(List<PedidoLocacao> pedidos) {
+        List<Pedido> validados = new ArrayList<>(pedidos.size());
+        for (PedidoLocacao pedido : pedidos) {
+            Pedido emAndamento = new Pedido(pedido);
+            MotivoRejeicao motivo = LocacaoService.verificar(pedido.getUsuario(), pedido.getFilmes());
+            if (motivo != null) {
+                emAndamento.erro = motivo.getExcecao();
+            }
+            validados.add(emAndamento);
+        }
+        return validados;
+    }
+
+    private List<Pedido> consultarSpc(List<Pedido> pedidos) {
+        Set<Usuario> usuarios = new LinkedHashSet<>();
+        for (Pedido pedido : pedidos) {
+            if (pedido.erro == null) {
+                usuarios.add(pedido.pedido.getUsuario());
+            }
+        }
+
+        Set<Usuario> negativados;
+        try {
+            negativados = usuarios.isEmpty() ? Collections.emptySet() : servico.consultarNegativados(usuarios);
+        } catch (Exception e) {
+            marcar(pedidos, MotivoRejeicao.SPC_INDISPONIVEL.getExcecao());
+            return pedidos;
+        }
+
+        for (Pedido pedido : pedidos) {
+            if (pedido.erro == null && negativados.contains(pedido.pedido.getUsuario())) {
+                pedido.erro = MotivoRejeicao.USUARIO_NEGATIVADO.getExcecao();
+            }
+        }
+        return pedidos;
+    }
+
+    private List<Pedido> precificar(List<Pedido> pedidos) {
+        for (Pedido pedido : pedidos) {
+            if (pedido.erro != null) {
+                continue;
+            }
+            try {
+                pedido.reserva = servico.reservarEstoque(pedido.pedido.getFilmes());
+            } catch (FilmeSemEstoqueException e) {
+                pedido.erro = e;
+                continue;
+            }
+            try {
+                pedido.locacao = servico.criarLocacao(pedido.pedido.getUsuario(), pedido.pedido.getFilmes());
+            } catch (RuntimeException e) {
+                // falha de um pedido nao pode encerrar o pipeline dos demais
+                servico.liberarEstoque(pedido.reserva);
+                pedido.erro = e;
+            }
+        }
+        return pedidos;
+    }
+
+    private List<ResultadoLocacao> gravar(List<Pedido> pedidos) {
+        List<Locacao> locacoes = new ArrayList<>(pedidos.size());
+        for (Pedido pedido : pedidos) {
+            if (pedido.erro == null) {
+                locacoes.add(pedido.locacao);
+            }
+        }
+
+        if (!locacoes.isEmpty()) {
+            try {
+                servico.salvarLote(locacoes);
+            } catch (RuntimeException e) {
+                for (Pedido pedido : pedidos) {
+                    if (pedido.erro == null) {
+                        servico.liberarEstoque(pedido.reserva);
+                        pedido.erro = e;
+                    }
+                }
+            }
+        }
+
+        List<ResultadoLocacao> resultados = new ArrayList<>(pedidos.size());
+        for (Pedido pedido : pedidos) {
+            resultados.add(pedido.erro == null
+                    ? ResultadoLocacao.sucesso(pedido.pedido, pedido.locacao)
+                    : ResultadoLocacao.falha(pedido.pedido, pedido.erro));
+        }
+        return resultados;
+    }
+
+    private static void marcar(List<Pedido> pedidos, Exception erro) {
+        for (Pedido pedido : pedidos) {
+            if (pedido.erro == null) {
+                pedido.erro = erro;
+            }
+        }
+    }
+
+    /**
+     * Pedido em andamento, preenchido estagio a estagio.
+     */
+    private static final class Pedido {
+
+        private final PedidoLocacao pedido;
+        private Exception erro;
+        private ReservaEstoque reserva;
+        private Locacao locacao;
+
+        Pedido(PedidoLocacao pedido) {
+            this.pedido = pedido;
+        }
+    }
+}
@@ -0,0 +1,43 @@
+package br.ce.wcaquino.servicos;
+
+import br.ce.wcaquino.entidades.Filme;
+import br.ce.wcaquino.exceptions.FilmeSemEstoqueException;
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.Collections;
+import java.util.Map;
+
+/**
+ * Resultado de {@link EstoqueFilmes#reservar}: todas as copias do carrinho reservadas
+ * ou nenhuma, indicando o filme que ficou sem estoque.
+ */
+@Getter
+@AllArgsConstructor(access = AccessLevel.PRIVATE)
+public class ReservaEstoque {
+
+    /**
+     * Copias reservadas por nome do filme.
+     */
+    private final Map<String, Integer> quantidades;
+    private final Filme filmeSemEstoque;
+
+    static ReservaEstoque confirmada(Map<String, Integer> quantidades) {
+        return new ReservaEstoque(Collections.unmodifiableMap(quantidades), null);
+    }
+
+    static ReservaEstoque semEstoque(Filme filme) {
+        return new ReservaEstoque(Collections.emptyMap(), filme);
+    }
+
+    public boolean isConfirmada() {
+        return filmeSemEstoque == null;
+    }
+
+    public void validar() throws FilmeSemEstoqueException {
+        if (!isConfirmada()) {
+            throw MotivoRejeicao.filmeSemEstoque();
+        }
+    }
+}
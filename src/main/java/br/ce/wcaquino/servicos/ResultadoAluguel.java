@@ -0,0 +1,97 @@
+package br.ce.wcaquino.servicos;
+
+import br.ce.wcaquino.entidades.Locacao;
+import lombok.Getter;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Resultado de {@link LocacaoService#tentarAlugarFilme}: {@link Sucesso} com a locacao ou
+ * {@link Rejeicao} com o motivo. As unicas subclasses sao as duas aninhadas; as rejeicoes
+ * sao pre-alocadas, uma por motivo.
+ */
+public abstract class ResultadoAluguel {
+
+    private static final Map<MotivoRejeicao, Rejeicao> REJEICOES = new EnumMap<>(MotivoRejeicao.class);
+
+    static {
+        for (MotivoRejeicao motivo : MotivoRejeicao.values()) {
+            REJEICOES.put(motivo, new Rejeicao(motivo));
+        }
+    }
+
+    private ResultadoAluguel() {
+    }
+
+    public static ResultadoAluguel sucesso(Locacao locacao) {
+        return new Sucesso(locacao);
+    }
+
+    public static ResultadoAluguel rejeicao(MotivoRejeicao motivo) {
+        return REJEICOES.get(motivo);
+    }
+
+    public abstract boolean isSucesso();
+
+    /**
+     * Aplica a funcao correspondente ao tipo do resultado.
+     */
+    public abstract <R> R mapear(Function<Locacao, R> seSucesso, Function<MotivoRejeicao, R> seRejeicao);
+
+    /**
+     * @return A locacao, ou lanca a excecao pre-alocada do motivo da rejeicao
+     */
+    public abstract Locacao obterLocacao() throws Exception;
+
+    @Getter
+    public static final class Sucesso extends ResultadoAluguel {
+
+        private final Locacao locacao;
+
+        private Sucesso(Locacao locacao) {
+            this.locacao = locacao;
+        }
+
+        @Override
+        public boolean isSucesso() {
+            return true;
+        }
+
+        @Override
+        public <R> R mapear(Function<Locacao, R> seSucesso, Function<MotivoRejeicao, R> seRejeicao) {
+            return seSucesso.apply(locacao);
+        }
+
+        @Override
+        public Locacao obterLocacao() {
+            return locacao;
+        }
+    }
+
+    @Getter
+    public static final class Rejeicao extends ResultadoAluguel {
+
+        private final MotivoRejeicao motivo;
+
+        private Rejeicao(MotivoRejeicao motivo) {
+            this.motivo = motivo;
+        }
+
+        @Override
+        public boolean isSucesso() {
+            return false;
+        }
+
+        @Override
+        public <R> R mapear(Function<Locacao, R> seSucesso, Function<MotivoRejeicao, R> seRejeicao) {
+            return seRejeicao.apply(motivo);
+        }
+
+        @Override
+        public Locacao obterLocacao() throws Exception {
+            throw motivo.getExcecao();
+        }
+    }
+}
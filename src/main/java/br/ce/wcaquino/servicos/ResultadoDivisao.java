@@ -0,0 +1,31 @@
+package br.ce.wcaquino.servicos;
+
+import lombok.Getter;
+
+/**
+ * Resultado mutavel das divisoes sobre texto da {@link Calculadora}. O mesmo objeto pode
+ * ser reutilizado entre chamadas, de modo que processar uma entrada inteira nao aloca nada
+ * por linha, nem mesmo excecoes para entradas invalidas.
+ */
+@Getter
+public class ResultadoDivisao {
+
+    public enum Status {
+        OK,
+        ENTRADA_INVALIDA,
+        DIVISAO_POR_ZERO
+    }
+
+    private Status status = Status.OK;
+    private int valor;
+
+    public boolean isOk() {
+        return status == Status.OK;
+    }
+
+    ResultadoDivisao definir(Status status, int valor) {
+        this.status = status;
+        this.valor = valor;
+        return this;
+    }
+}
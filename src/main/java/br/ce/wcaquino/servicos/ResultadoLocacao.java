@@ -0,0 +1,32 @@
+package br.ce.wcaquino.servicos;
+
+import br.ce.wcaquino.entidades.Locacao;
+import br.ce.wcaquino.entidades.PedidoLocacao;
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Resultado de um pedido processado em lote: a locacao gerada ou o erro que
+ * impediu o aluguel daquele pedido.
+ */
+@Getter
+@AllArgsConstructor(access = AccessLevel.PRIVATE)
+public class ResultadoLocacao {
+
+    private final PedidoLocacao pedido;
+    private final Locacao locacao;
+    private final Exception erro;
+
+    public static ResultadoLocacao sucesso(PedidoLocacao pedido, Locacao locacao) {
+        return new ResultadoLocacao(pedido, locacao, null);
+    }
+
+    public static ResultadoLocacao falha(PedidoLocacao pedido, Exception erro) {
+        return new ResultadoLocacao(pedido, null, erro);
+    }
+
+    public boolean isSucesso() {
+        return erro == null;
+    }
+}
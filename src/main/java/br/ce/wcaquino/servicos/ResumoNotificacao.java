@@ -0,0 +1,19 @@
+package br.ce.wcaquino.servicos;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.ToString;
+
+import java.time.Duration;
+
+@Getter
+@ToString
+@AllArgsConstructor
+public class ResumoNotificacao {
+
+    private final long atrasadas;
+    private final long notificadas;
+    private final long falhas;
+    private final Duration duracao;
+
+}
@@ -2,7 +2,26 @@ package br.ce.wcaquino.servicos;
 
 import br.ce.wcaquino.entidades.Usuario;
 
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Set;
+
 public interface SPCService {
 
     boolean pussuiNegativacao(Usuario usuario) throws Exception;
+
+    /**
+     * Consulta varios usuarios de uma vez, retornando apenas os negativados.
+     * Implementacoes com consulta em lote no SPC devem sobrescrever este metodo;
+     * o padrao faz uma chamada por usuario.
+     */
+    default Set<Usuario> obterNegativados(Collection<Usuario> usuarios) throws Exception {
+        Set<Usuario> negativados = new HashSet<>();
+        for (Usuario usuario : usuarios) {
+            if (pussuiNegativacao(usuario)) {
+                negativados.add(usuario);
+            }
+        }
+        return negativados;
+    }
 }
@@ -0,0 +1,25 @@
+package br.ce.wcaquino.servicos;
+
+import br.ce.wcaquino.entidades.Usuario;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+
+public interface SPCServiceAsync {
+
+    CompletableFuture<Boolean> pussuiNegativacao(Usuario usuario);
+
+    /**
+     * Adapta um {@link SPCService} bloqueante, executando cada consulta no executor informado.
+     */
+    static SPCServiceAsync adaptar(SPCService spcService, Executor executor) {
+        return usuario -> CompletableFuture.supplyAsync(() -> {
+            try {
+                return spcService.pussuiNegativacao(usuario);
+            } catch (Exception e) {
+                throw new CompletionException(e);
+            }
+        }, executor);
+    }
+}
@@ -0,0 +1,285 @@
+package br.ce.wcaquino.servicos;
+
+import br.ce.wcaquino.entidades.Usuario;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+/**
+ * Decorador de {@link SPCService} que guarda as respostas do SPC por um tempo
+ * configuravel (um para usuarios negativados e outro para os demais), limitado
+ * a uma quantidade maxima de usuarios com despejo do menos usado recentemente.
+ * Consultas simultaneas para o mesmo usuario, individuais ou em lote, resultam em
+ * uma unica chamada ao SPC.
+ * <p>
+ * O LRU e dividido em segmentos com trava propria, escolhidos pelo hash do usuario,
+ * para que consultas de usuarios diferentes nao disputem a mesma trava. Com varios
+ * segmentos o despejo e do menos usado do segmento, e nao do cache inteiro.
+ */
+public class SPCServiceComCache implements SPCService {
+
+    /**
+     * Capacidade minima de cada segmento; caches pequenos ficam com um segmento so e LRU exato.
+     */
+    private static final int CAPACIDADE_MINIMA_SEGMENTO = 64;
+    private static final int MAXIMO_SEGMENTOS = 16;
+
+    private final SPCService delegado;
+    private final long ttlNegativadoNanos;
+    private final long ttlNaoNegativadoNanos;
+    private final LongSupplier relogio;
+
+    private final Segmento[] segmentos;
+    private final Map<Usuario, CompletableFuture<Boolean>> consultasEmAndamento = new ConcurrentHashMap<>();
+
+    private final LongAdder acertos = new LongAdder();
+    private final LongAdder falhas = new LongAdder();
+    private final LongAdder despejos = new LongAdder();
+    private final LongAdder coalescidas = new LongAdder();
+
+    public SPCServiceComCache(SPCService delegado, Duration ttlNegativado, Duration ttlNaoNegativado, int capacidade) {
+        this(delegado, ttlNegativado, ttlNaoNegativado, capacidade, System::nanoTime);
+    }
+
+    SPCServiceComCache(SPCService delegado, Duration ttlNegativado, Duration ttlNaoNegativado, int capacidade,
+                       LongSupplier relogio) {
+        if (capacidade <= 0) {
+            throw new IllegalArgumentException("Capacidade deve ser positiva");
+        }
+        this.delegado = delegado;
+        this.ttlNegativadoNanos = ttlNegativado.toNanos();
+        this.ttlNaoNegativadoNanos = ttlNaoNegativado.toNanos();
+        this.relogio = relogio;
+
+        int quantidade = 1;
+        while (quantidade < MAXIMO_SEGMENTOS && capacidade / (quantidade * 2) >= CAPACIDADE_MINIMA_SEGMENTO) {
+            quantidade *= 2;
+        }
+        this.segmentos = new Segmento[quantidade];
+        for (int i = 0; i < quantidade; i++) {
+            // distribui o resto para que a soma das capacidades seja exatamente a capacidade
+            segmentos[i] = new Segmento(capacidade / quantidade + (i < capacidade % quantidade ? 1 : 0));
+        }
+    }
+
+    @Override
+    public boolean pussuiNegativacao(Usuario usuario) throws Exception {
+        Boolean emCache = consultarCache(usuario);
+        if (emCache != null) {
+            acertos.increment();
+            return emCache;
+        }
+        falhas.increment();
+
+        CompletableFuture<Boolean> consulta = new CompletableFuture<>();
+        CompletableFuture<Boolean> emAndamento = consultasEmAndamento.putIfAbsent(usuario, consulta);
+        if (emAndamento != null) {
+            coalescidas.increment();
+            return aguardar(emAndamento);
+        }
+
+        try {
+            boolean negativado = delegado.pussuiNegativacao(usuario);
+            armazenar(usuario, negativado);
+            consulta.complete(negativado);
+            return negativado;
+        } catch (Throwable e) {
+            // inclusive Error: sem isso as consultas coalescidas ficariam esperando para sempre
+            consulta.completeExceptionally(e);
+            throw e;
+        } finally {
+            consultasEmAndamento.remove(usuario, consulta);
+        }
+    }
+
+    @Override
+    public Set<Usuario> obterNegativados(Collection<Usuario> usuarios) throws Exception {
+        Set<Usuario> negativados = new HashSet<>();
+        List<Usuario> pendentes = new ArrayList<>();
+
+        for (Usuario usuario : usuarios) {
+            Boolean emCache = consultarCache(usuario);
+            if (emCache == null) {
+                falhas.increment();
+                pendentes.add(usuario);
+            } else {
+                acertos.increment();
+                if (emCache) {
+                    negativados.add(usuario);
+                }
+            }
+        }
+
+        if (pendentes.isEmpty()) {
+            return negativados;
+        }
+
+        Map<Usuario, CompletableFuture<Boolean>> proprias = new LinkedHashMap<>();
+        Map<Usuario, CompletableFuture<Boolean>> alheias = new LinkedHashMap<>();
+        for (Usuario usuario : pendentes) {
+            CompletableFuture<Boolean> consulta = new CompletableFuture<>();
+            CompletableFuture<Boolean> emAndamento = consultasEmAndamento.putIfAbsent(usuario, consulta);
+            if (emAndamento == null) {
+                proprias.put(usuario, consulta);
+            } else {
+                coalescidas.increment();
+                alheias.put(usuario, emAndamento);
+            }
+        }
+
+        // conclui as proprias antes de aguardar as alheias, para que dois lotes
+        // sobrepostos nao fiquem esperando um pelo outro
+        if (!proprias.isEmpty()) {
+            try {
+                Set<Usuario> consultados = delegado.obterNegativados(new ArrayList<>(proprias.keySet()));
+                for (Map.Entry<Usuario, CompletableFuture<Boolean>> propria : proprias.entrySet()) {
+                    boolean negativado = consultados.contains(propria.getKey());
+                    armazenar(propria.getKey(), negativado);
+                    propria.getValue().complete(negativado);
+                    if (negativado) {
+                        negativados.add(propria.getKey());
+                    }
+                }
+            } catch (Throwable e) {
+                proprias.values().forEach(consulta -> consulta.completeExceptionally(e));
+                throw e;
+            } finally {
+                proprias.forEach(consultasEmAndamento::remove);
+            }
+        }
+
+        for (Map.Entry<Usuario, CompletableFuture<Boolean>> alheia : alheias.entrySet()) {
+            if (aguardar(alheia.getValue())) {
+                negativados.add(alheia.getKey());
+            }
+        }
+
+        return negativados;
+    }
+
+    public void invalidar(Usuario usuario) {
+        Segmento segmento = segmento(usuario);
+        synchronized (segmento) {
+            segmento.remove(usuario);
+        }
+    }
+
+    public long getAcertos() {
+        return acertos.sum();
+    }
+
+    public long getFalhas() {
+        return falhas.sum();
+    }
+
+    public long getDespejos() {
+        return despejos.sum();
+    }
+
+    public long getCoalescidas() {
+        return coalescidas.sum();
+    }
+
+    public int getTamanho() {
+        int tamanho = 0;
+        for (Segmento segmento : segmentos) {
+            synchronized (segmento) {
+                tamanho += segmento.size();
+            }
+        }
+        return tamanho;
+    }
+
+    private Segmento segmento(Usuario usuario) {
+        int hash = usuario.hashCode();
+        return segmentos[(hash ^ (hash >>> 16)) & (segmentos.length - 1)];
+    }
+
+    private Boolean consultarCache(Usuario usuario) {
+        long agora = relogio.getAsLong();
+        Segmento segmento = segmento(usuario);
+        synchronized (segmento) {
+            Entrada entrada = segmento.get(usuario);
+            if (entrada == null) {
+                return null;
+            }
+            if (agora - entrada.expiraEm >= 0) {
+                segmento.remove(usuario);
+                return null;
+            }
+            return entrada.negativado;
+        }
+    }
+
+    private void armazenar(Usuario usuario, boolean negativado) {
+        long ttl = negativado ? ttlNegativadoNanos : ttlNaoNegativadoNanos;
+        if (ttl <= 0) {
+            return;
+        }
+        Entrada entrada = new Entrada(negativado, relogio.getAsLong() + ttl);
+        Segmento segmento = segmento(usuario);
+        synchronized (segmento) {
+            segmento.put(usuario, entrada);
+        }
+    }
+
+    private static boolean aguardar(CompletableFuture<Boolean> consulta) throws Exception {
+        try {
+            return consulta.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof Exception) {
+                throw (Exception) e.getCause();
+            }
+            if (e.getCause() instanceof Error) {
+                throw (Error) e.getCause();
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * LRU de um segmento; todo acesso e feito com a trava do proprio segmento.
+     */
+    private final class Segmento extends LinkedHashMap<Usuario, Entrada> {
+
+        private static final long serialVersionUID = 1L;
+
+        private final int capacidadeSegmento;
+
+        private Segmento(int capacidadeSegmento) {
+            super(16, 0.75f, true);
+            this.capacidadeSegmento = capacidadeSegmento;
+        }
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Usuario, Entrada> maisAntiga) {
+            if (size() > capacidadeSegmento) {
+                despejos.increment();
+                return true;
+            }
+            return false;
+        }
+    }
+
+    private static final class Entrada {
+
+        private final boolean negativado;
+        private final long expiraEm;
+
+        private Entrada(boolean negativado, long expiraEm) {
+            this.negativado = negativado;
+            this.expiraEm = expiraEm;
+        }
+    }
+}
@@ -0,0 +1,284 @@
+package br.ce.wcaquino.servicos;
+
+import br.ce.wcaquino.entidades.Usuario;
+import br.ce.wcaquino.exceptions.SPCIndisponivelException;
+import br.ce.wcaquino.metricas.Histograma;
+import br.ce.wcaquino.utils.Executores;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+/**
+ * Decorador de {@link SPCService} que protege as locacoes de um SPC degradado:
+ * <ul>
+ *     <li>cada consulta tem um prazo; esgotado, lanca {@link TimeoutException} sem esperar o SPC;</li>
+ *     <li>um circuito abre quando a taxa de erro das ultimas chamadas passa do limite, fazendo as
+ *     consultas falharem na hora com {@link SPCIndisponivelException}; depois do tempo de espera uma
+ *     chamada de teste decide se ele fecha ou volta a abrir;</li>
+ *     <li>opcionalmente, se a resposta demorar mais que um percentil da latencia observada, uma
+ *     segunda consulta e disparada e vale a que responder primeiro.</li>
+ * </ul>
+ * As consultas rodam em um executor proprio; uma consulta abandonada por prazo continua em
+ * segundo plano ate o SPC responder.
+ */
+public class SPCServiceResiliente implements SPCService, AutoCloseable {
+
+    private static final int AMOSTRAS_POR_ATUALIZACAO = 100;
+
+    private final SPCService delegado;
+    private final long prazoNanos;
+    private final double limiteTaxaErro;
+    private final long esperaNanos;
+    private final LongSupplier relogio;
+    private final ExecutorService executor;
+
+    // janela circular com o resultado (true = falha) das ultimas chamadas
+    private final boolean[] janela;
+    private int posicao;
+    private int preenchidas;
+    private int falhasNaJanela;
+    private long abertoEm;
+    private boolean testeEmAndamento;
+    @Getter
+    private EstadoCircuito estado = EstadoCircuito.FECHADO;
+
+    /**
+     * Percentil da latencia apos o qual uma segunda consulta e disparada; 0 desliga.
+     */
+    @Setter
+    private double percentilRepeticao;
+
+    /**
+     * Chamado, sob o lock do circuito, a cada mudanca de estado; deve retornar rapido.
+     */
+    @Setter
+    private OuvinteCircuito ouvinte = (anterior, novo) -> { };
+
+    private final Histograma latencias = new Histograma();
+    private final AtomicLong amostras = new AtomicLong();
+    private volatile long atrasoRepeticaoNanos;
+
+    private final LongAdder rejeitadas = new LongAdder();
+    private final LongAdder prazosEsgotados = new LongAdder();
+    private final LongAdder repeticoes = new LongAdder();
+
+    /**
+     * @param prazo          Tempo maximo de cada consulta
+     * @param limiteTaxaErro Fracao de falhas, maior que 0 e ate 1, na janela que abre o circuito
+     * @param tamanhoJanela  Quantidade de chamadas consideradas; o circuito so abre com a janela cheia
+     * @param espera         Tempo com o circuito aberto antes da chamada de teste
+     */
+    public SPCServiceResiliente(SPCService delegado, Duration prazo, double limiteTaxaErro, int tamanhoJanela,
+                                Duration espera) {
+        this(delegado, prazo, limiteTaxaErro, tamanhoJanela, espera, System::nanoTime,
+                Executores.novoExecutorPorTarefa());
+    }
+
+    SPCServiceResiliente(SPCService delegado, Duration prazo, double limiteTaxaErro, int tamanhoJanela,
+                         Duration espera, LongSupplier relogio, ExecutorService executor) {
+        if (tamanhoJanela <= 0) {
+            throw new IllegalArgumentException("Tamanho da janela deve ser positivo");
+        }
+        // escrito pela negativa para rejeitar NaN tambem
+        if (!(limiteTaxaErro > 0 && limiteTaxaErro <= 1)) {
+            throw new IllegalArgumentException("Limite da taxa de erro deve estar entre 0 (exclusive) e 1");
+        }
+        this.delegado = delegado;
+        this.prazoNanos = prazo.toNanos();
+        this.limiteTaxaErro = limiteTaxaErro;
+        this.janela = new boolean[tamanhoJanela];
+        this.esperaNanos = espera.toNanos();
+        this.relogio = relogio;
+        this.executor = executor;
+    }
+
+    @Override
+    public boolean pussuiNegativacao(Usuario usuario) throws Exception {
+        boolean teste = permitir();
+        Consulta consulta = new Consulta(usuario);
+        consulta.disparar();
+
+        boolean negativado;
+        try {
+            long atraso = percentilRepeticao > 0 ? atrasoRepeticaoNanos : 0;
+            if (atraso > 0 && atraso < prazoNanos) {
+                try {
+                    negativado = consulta.resultado.get(atraso, TimeUnit.NANOSECONDS);
+                } catch (TimeoutException e) {
+                    repeticoes.increment();
+                    consulta.disparar();
+                    negativado = consulta.resultado.get(prazoNanos - atraso, TimeUnit.NANOSECONDS);
+                }
+            } else {
+                negativado = consulta.resultado.get(prazoNanos, TimeUnit.NANOSECONDS);
+            }
+        } catch (TimeoutException e) {
+            prazosEsgotados.increment();
+            registrar(true, teste);
+            throw e;
+        } catch (ExecutionException e) {
+            registrar(true, teste);
+            Throwable causa = e.getCause() instanceof CompletionException ? e.getCause().getCause() : e.getCause();
+            throw causa instanceof Exception ? (Exception) causa : e;
+        } catch (InterruptedException e) {
+            liberarTeste(teste);
+            throw e;
+        }
+
+        registrar(false, teste);
+        return negativado;
+    }
+
+    public long getRejeitadas() {
+        return rejeitadas.sum();
+    }
+
+    public long getPrazosEsgotados() {
+        return prazosEsgotados.sum();
+    }
+
+    public long getRepeticoes() {
+        return repeticoes.sum();
+    }
+
+    @Override
+    public void close() {
+        executor.shutdown();
+    }
+
+    /**
+     * @return <code>true</code> se esta e a chamada de teste do circuito semi-aberto
+     */
+    private synchronized boolean permitir() throws SPCIndisponivelException {
+        if (estado == EstadoCircuito.ABERTO && relogio.getAsLong() - abertoEm >= esperaNanos) {
+            mudarEstado(EstadoCircuito.SEMI_ABERTO);
+        }
+        if (estado == EstadoCircuito.FECHADO) {
+            return false;
+        }
+        if (estado == EstadoCircuito.SEMI_ABERTO && !testeEmAndamento) {
+            testeEmAndamento = true;
+            return true;
+        }
+        rejeitadas.increment();
+        throw new SPCIndisponivelException("Circuito do SPC aberto");
+    }
+
+    private synchronized void registrar(boolean falha, boolean teste) {
+        if (teste) {
+            testeEmAndamento = false;
+            if (falha) {
+                abrir();
+            } else {
+                limparJanela();
+                mudarEstado(EstadoCircuito.FECHADO);
+            }
+            return;
+        }
+        if (estado != EstadoCircuito.FECHADO) {
+            return;
+        }
+
+        if (preenchidas == janela.length) {
+            if (janela[posicao]) {
+                falhasNaJanela--;
+            }
+        } else {
+            preenchidas++;
+        }
+        janela[posicao] = falha;
+        if (falha) {
+            falhasNaJanela++;
+        }
+        posicao = (posicao + 1) % janela.length;
+
+        if (preenchidas == janela.length && falhasNaJanela >= limiteTaxaErro * janela.length) {
+            abrir();
+        }
+    }
+
+    private synchronized void liberarTeste(boolean teste) {
+        if (teste) {
+            testeEmAndamento = false;
+        }
+    }
+
+    private void abrir() {
+        abertoEm = relogio.getAsLong();
+        limparJanela();
+        mudarEstado(EstadoCircuito.ABERTO);
+    }
+
+    private void limparJanela() {
+        Arrays.fill(janela, false);
+        posicao = 0;
+        preenchidas = 0;
+        falhasNaJanela = 0;
+    }
+
+    private void mudarEstado(EstadoCircuito novo) {
+        EstadoCircuito anterior = estado;
+        if (anterior != novo) {
+            estado = novo;
+            ouvinte.mudouEstado(anterior, novo);
+        }
+    }
+
+    private void registrarLatencia(long nanos) {
+        latencias.registrar(nanos);
+        if (amostras.incrementAndGet() % AMOSTRAS_POR_ATUALIZACAO == 0 && percentilRepeticao > 0) {
+            atrasoRepeticaoNanos = latencias.instantaneo().percentil(percentilRepeticao);
+        }
+    }
+
+    /**
+     * Uma ou mais tentativas para o mesmo usuario; vale a primeira que responder com sucesso
+     * e so falha quando todas falharem.
+     */
+    private class Consulta {
+
+        private final Usuario usuario;
+        private final CompletableFuture<Boolean> resultado = new CompletableFuture<>();
+        private final AtomicInteger pendentes = new AtomicInteger();
+
+        Consulta(Usuario usuario) {
+            this.usuario = usuario;
+        }
+
+        void disparar() {
+            pendentes.incrementAndGet();
+            long inicio = System.nanoTime();
+            CompletableFuture.supplyAsync(() -> {
+                try {
+                    return delegado.pussuiNegativacao(usuario);
+                } catch (Exception e) {
+                    throw new CompletionException(e);
+                }
+            }, executor).whenComplete((negativado, erro) -> {
+                registrarLatencia(System.nanoTime() - inicio);
+                if (erro == null) {
+                    resultado.complete(negativado);
+                } else if (pendentes.decrementAndGet() == 0) {
+                    resultado.completeExceptionally(erro);
+                }
+            });
+        }
+    }
+
+    @FunctionalInterface
+    public interface OuvinteCircuito {
+        void mudouEstado(EstadoCircuito anterior, EstadoCircuito novo);
+    }
+}
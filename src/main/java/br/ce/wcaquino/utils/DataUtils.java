@@ -1,15 +1,24 @@
 package br.ce.wcaquino.utils;
 
 import static java.util.Calendar.DAY_OF_MONTH;
-import static java.util.Calendar.DAY_OF_WEEK;
 import static java.util.Calendar.MONTH;
 import static java.util.Calendar.YEAR;
 
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.zone.ZoneRules;
 import java.util.Calendar;
 import java.util.Date;
 
+/**
+ * Todas as conversoes entre instantes e dias recebem o fuso explicitamente; as sobrecargas
+ * com <code>Date</code> usam o fuso padrao vigente na chamada.
+ */
 public class DataUtils {
 
+    private static final long MILIS_POR_DIA = 86_400_000L;
+
     private DataUtils() {}
 
     /**
@@ -21,10 +30,21 @@ public class DataUtils {
      * @return
      */
     public static Date adicionarDias(Date data, int dias) {
-        Calendar calendar = Calendar.getInstance();
-        calendar.setTime(data);
-        calendar.add(DAY_OF_MONTH, dias);
-        return calendar.getTime();
+        return new Date(adicionarDiasMilis(data.getTime(), dias, ZoneId.systemDefault()));
+    }
+
+    /**
+     * Retorna o instante (em milissegundos) com a adição dos dias desejados,
+     * mantendo o horário local
+     *
+     * @param epochMilli Instante em milissegundos desde 01/01/1970 UTC
+     * @param dias       Quantidade de dias a ser incrementado/decrementado
+     * @param fuso       Fuso do horário local
+     * @return Instante atualizado
+     */
+    public static long adicionarDiasMilis(long epochMilli, int dias, ZoneId fuso) {
+        ZoneRules regras = fuso.getRules();
+        return paraEpochMilli(epochDay(epochMilli, regras) + dias, milisDoDia(epochMilli, regras), regras);
     }
 
     /**
@@ -64,12 +84,8 @@ public class DataUtils {
      * @return
      */
     public static boolean isMesmaData(Date data1, Date data2) {
-        Calendar calendar1 = Calendar.getInstance();
-        calendar1.setTime(data1);
-        Calendar calendar2 = Calendar.getInstance();
-        calendar2.setTime(data2);
-        return (calendar1.get(DAY_OF_MONTH) == calendar2.get(DAY_OF_MONTH))
-                && (calendar1.get(MONTH) == calendar2.get(MONTH)) && (calendar1.get(YEAR) == calendar2.get(YEAR));
+        ZoneRules regras = ZoneId.systemDefault().getRules();
+        return epochDay(data1.getTime(), regras) == epochDay(data2.getTime(), regras);
     }
 
     /**
@@ -81,8 +97,129 @@ public class DataUtils {
      * @return
      */
     public static boolean verificarDiaSemana(Date data, int diaSemana) {
-        Calendar calendar = Calendar.getInstance();
-        calendar.setTime(data);
-        return calendar.get(DAY_OF_WEEK) == diaSemana;
+        return verificarDiaSemana(epochDay(data), diaSemana);
+    }
+
+    /**
+     * Verifica se uma determinada data é o dia da semana desejado
+     *
+     * @param data      Data a ser avaliada
+     * @param diaSemana Dia da semana nas constantes de <code>Calendar</code>
+     * @return
+     */
+    public static boolean verificarDiaSemana(LocalDate data, int diaSemana) {
+        return verificarDiaSemana(data.toEpochDay(), diaSemana);
+    }
+
+    /**
+     * Verifica se um determinado epoch-day é o dia da semana desejado
+     *
+     * @param epochDay  Dias desde 01/01/1970
+     * @param diaSemana Dia da semana nas constantes de <code>Calendar</code>
+     * @return
+     */
+    public static boolean verificarDiaSemana(long epochDay, int diaSemana) {
+        return diaSemana(epochDay) == diaSemana;
+    }
+
+    /**
+     * Retorna o dia da semana de um epoch-day, no padrão de <code>Calendar</code>
+     * (<code>SUNDAY</code> = 1 ... <code>SATURDAY</code> = 7). 01/01/1970 foi uma quinta-feira.
+     *
+     * @param epochDay Dias desde 01/01/1970
+     * @return Dia da semana
+     */
+    public static int diaSemana(long epochDay) {
+        return Math.floorMod(epochDay + 4, 7) + 1;
+    }
+
+    /**
+     * Retorna o epoch-day (dias desde 01/01/1970) da data no fuso padrão
+     *
+     * @param data
+     * @return
+     */
+    public static long epochDay(Date data) {
+        return epochDay(data.getTime(), ZoneId.systemDefault());
+    }
+
+    /**
+     * Retorna o epoch-day (dias desde 01/01/1970) do instante no fuso informado
+     *
+     * @param epochMilli Instante em milissegundos desde 01/01/1970 UTC
+     * @param fuso
+     * @return
+     */
+    public static long epochDay(long epochMilli, ZoneId fuso) {
+        return epochDay(epochMilli, fuso.getRules());
+    }
+
+    private static long epochDay(long epochMilli, ZoneRules regras) {
+        return Math.floorDiv(epochMilli + deslocamento(epochMilli, regras), MILIS_POR_DIA);
+    }
+
+    /**
+     * Retorna o epoch-day da data atual no fuso informado
+     *
+     * @param fuso
+     * @return
+     */
+    public static long hoje(ZoneId fuso) {
+        return epochDay(System.currentTimeMillis(), fuso);
+    }
+
+    /**
+     * Retorna os milissegundos decorridos desde a meia-noite local do instante
+     *
+     * @param epochMilli Instante em milissegundos desde 01/01/1970 UTC
+     * @param fuso
+     * @return
+     */
+    public static long milisDoDia(long epochMilli, ZoneId fuso) {
+        return milisDoDia(epochMilli, fuso.getRules());
+    }
+
+    private static long milisDoDia(long epochMilli, ZoneRules regras) {
+        return Math.floorMod(epochMilli + deslocamento(epochMilli, regras), MILIS_POR_DIA);
+    }
+
+    /**
+     * Converte um epoch-day e um horário local em instante (milissegundos desde 01/01/1970 UTC)
+     *
+     * @param epochDay   Dias desde 01/01/1970
+     * @param milisDoDia Milissegundos desde a meia-noite local
+     * @param fuso
+     * @return
+     */
+    public static long paraEpochMilli(long epochDay, long milisDoDia, ZoneId fuso) {
+        return paraEpochMilli(epochDay, milisDoDia, fuso.getRules());
+    }
+
+    private static long paraEpochMilli(long epochDay, long milisDoDia, ZoneRules regras) {
+        long local = epochDay * MILIS_POR_DIA + milisDoDia;
+        long padrao = regras.getStandardOffset(Instant.ofEpochMilli(local)).getTotalSeconds() * 1000L;
+        long deslocamento = deslocamento(local - padrao, regras);
+        return local - deslocamento(local - deslocamento, regras);
+    }
+
+    private static long deslocamento(long epochMilli, ZoneRules regras) {
+        return regras.getOffset(Instant.ofEpochMilli(epochMilli)).getTotalSeconds() * 1000L;
+    }
+
+    /**
+     * Retorna o epoch-day de uma data do calendário gregoriano, sem criar objetos
+     *
+     * @param dia
+     * @param mes 1 a 12
+     * @param ano
+     * @return
+     */
+    public static long obterEpochDay(int dia, int mes, int ano) {
+        long anoAjustado = mes <= 2 ? ano - 1 : ano;
+        long era = Math.floorDiv(anoAjustado, 400);
+        long anoDaEra = anoAjustado - era * 400;
+        long diaDoAno = (153 * ((mes + 9) % 12) + 2) / 5 + dia - 1;
+        long diaDaEra = anoDaEra * 365 + anoDaEra / 4 - anoDaEra / 100 + diaDoAno;
+        return era * 146_097 + diaDaEra - 719_468;
     }
 }
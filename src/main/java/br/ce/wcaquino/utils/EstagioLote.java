@@ -0,0 +1,120 @@
+package br.ce.wcaquino.utils;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Flow;
+import java.util.concurrent.SubmissionPublisher;
+import java.util.function.Function;
+
+/**
+ * Estagio de um pipeline {@link Flow}: recebe itens do estagio anterior, processa-os em lotes
+ * com ate {@code concorrencia} lotes ao mesmo tempo e publica o resultado para o proximo.
+ * <p>
+ * A demanda e limitada: o estagio pede ao anterior no maximo {@code capacidade} itens e so
+ * pede mais depois de entregar os ja processados. Como {@link #submit} bloqueia quando o
+ * proximo estagio nao da conta, um estagio lento faz a pressao voltar ate o produtor.
+ * Os lotes se formam com o que estiver acumulado quando um trabalhador fica livre, entao
+ * com pouca carga cada item segue sozinho, sem esperar o lote encher.
+ */
+public class EstagioLote<I, O> extends SubmissionPublisher<O> implements Flow.Processor<I, O> {
+
+    private final Executor executor;
+    private final int capacidade;
+    private final int tamanhoLote;
+    private final int concorrencia;
+    private final Function<List<I>, List<O>> processar;
+
+    private final ArrayDeque<I> fila = new ArrayDeque<>();
+    private Flow.Subscription assinatura;
+    private int trabalhadores;
+    private boolean concluido;
+    private Throwable erro;
+
+    /**
+     * @param capacidade  Itens pedidos ao estagio anterior e tamanho do buffer para o proximo
+     * @param processar   Recebe um lote e devolve os itens a publicar; excecoes encerram o pipeline
+     */
+    public EstagioLote(Executor executor, int capacidade, int tamanhoLote, int concorrencia,
+                       Function<List<I>, List<O>> processar) {
+        super(executor, capacidade);
+        this.executor = executor;
+        this.capacidade = capacidade;
+        this.tamanhoLote = tamanhoLote;
+        this.concorrencia = concorrencia;
+        this.processar = processar;
+    }
+
+    @Override
+    public void onSubscribe(Flow.Subscription assinatura) {
+        this.assinatura = assinatura;
+        assinatura.request(capacidade);
+    }
+
+    @Override
+    public void onNext(I item) {
+        boolean iniciar;
+        synchronized (this) {
+            fila.add(item);
+            iniciar = trabalhadores < concorrencia;
+            if (iniciar) {
+                trabalhadores++;
+            }
+        }
+        if (iniciar) {
+            executor.execute(this::trabalhar);
+        }
+    }
+
+    @Override
+    public synchronized void onError(Throwable erro) {
+        this.erro = erro;
+        this.concluido = true;
+        encerrarSeOcioso();
+    }
+
+    @Override
+    public synchronized void onComplete() {
+        concluido = true;
+        encerrarSeOcioso();
+    }
+
+    private void trabalhar() {
+        while (true) {
+            List<I> lote;
+            synchronized (this) {
+                if (fila.isEmpty()) {
+                    trabalhadores--;
+                    encerrarSeOcioso();
+                    return;
+                }
+                lote = new ArrayList<>(Math.min(tamanhoLote, fila.size()));
+                while (lote.size() < tamanhoLote && !fila.isEmpty()) {
+                    lote.add(fila.poll());
+                }
+            }
+
+            List<O> saida;
+            try {
+                saida = processar.apply(lote);
+            } catch (RuntimeException e) {
+                assinatura.cancel();
+                closeExceptionally(e);
+                return;
+            }
+            saida.forEach(this::submit);
+            assinatura.request(lote.size());
+        }
+    }
+
+    private void encerrarSeOcioso() {
+        if (concluido && fila.isEmpty() && trabalhadores == 0) {
+            if (erro == null) {
+                close();
+            } else {
+                closeExceptionally(erro);
+            }
+        }
+    }
+}
@@ -0,0 +1,28 @@
+package br.ce.wcaquino.utils;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+public class Executores {
+
+    private Executores() {}
+
+    /**
+     * Retorna um executor que inicia uma thread por tarefa. Em JVMs com suporte a
+     * threads virtuais (Java 21+) sao usadas threads virtuais; nas demais, um pool
+     * de threads daemon sem limite de tamanho.
+     *
+     * @return Executor de uma thread por tarefa
+     */
+    public static ExecutorService novoExecutorPorTarefa() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException e) {
+            return Executors.newCachedThreadPool(tarefa -> {
+                Thread thread = new Thread(tarefa);
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+    }
+}
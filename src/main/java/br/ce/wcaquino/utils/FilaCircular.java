@@ -0,0 +1,119 @@
+package br.ce.wcaquino.utils;
+
+import java.util.Collection;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Fila circular limitada, sem locks, para varios produtores e um unico consumidor.
+ * <p>
+ * Cada posicao tem um numero de sequencia que indica se esta livre para o produtor da
+ * volta atual ou publicada para o consumidor (algoritmo de D. Vyukov). Os produtores
+ * disputam a cauda com CAS; o consumidor avanca a cabeca sem disputa. {@link #retirar()}
+ * e {@link #drenar} so podem ser chamados por uma thread por vez.
+ */
+public class FilaCircular<T> {
+
+    private final int mascara;
+    private final AtomicReferenceArray<T> elementos;
+    private final AtomicLongArray sequencias;
+    private final AtomicLong cauda = new AtomicLong();
+    private final AtomicLong cabeca = new AtomicLong();
+
+    /**
+     * @param capacidade Arredondada para a proxima potencia de dois (no minimo 2)
+     */
+    public FilaCircular(int capacidade) {
+        if (capacidade <= 0 || capacidade > 1 << 30) {
+            throw new IllegalArgumentException("Capacidade invalida: " + capacidade);
+        }
+        // com uma unica posicao a sequencia publicada se confundiria com a da proxima volta
+        int tamanho = capacidade <= 2 ? 2 : Integer.highestOneBit(capacidade - 1) << 1;
+        this.mascara = tamanho - 1;
+        this.elementos = new AtomicReferenceArray<>(tamanho);
+        this.sequencias = new AtomicLongArray(tamanho);
+        for (int i = 0; i < tamanho; i++) {
+            sequencias.set(i, i);
+        }
+    }
+
+    /**
+     * @return <code>false</code> se a fila estiver cheia
+     */
+    public boolean oferecer(T elemento) {
+        if (elemento == null) {
+            throw new NullPointerException();
+        }
+        long posicao = cauda.get();
+        while (true) {
+            int indice = (int) (posicao & mascara);
+            long diferenca = sequencias.get(indice) - posicao;
+            if (diferenca == 0) {
+                if (cauda.compareAndSet(posicao, posicao + 1)) {
+                    elementos.lazySet(indice, elemento);
+                    sequencias.set(indice, posicao + 1);
+                    return true;
+                }
+                posicao = cauda.get();
+            } else if (diferenca < 0) {
+                return false;
+            } else {
+                posicao = cauda.get();
+            }
+        }
+    }
+
+    /**
+     * @return Proximo elemento, ou <code>null</code> se nao houver nenhum publicado
+     */
+    public T retirar() {
+        long posicao = cabeca.get();
+        int indice = (int) (posicao & mascara);
+        if (sequencias.get(indice) != posicao + 1) {
+            return null;
+        }
+        T elemento = elementos.get(indice);
+        elementos.lazySet(indice, null);
+        sequencias.set(indice, posicao + mascara + 1);
+        cabeca.lazySet(posicao + 1);
+        return elemento;
+    }
+
+    /**
+     * Move ate {@code maximo} elementos para {@code destino}.
+     *
+     * @return Quantidade movida
+     */
+    public int drenar(Collection<? super T> destino, int maximo) {
+        int movidos = 0;
+        T elemento;
+        while (movidos < maximo && (elemento = retirar()) != null) {
+            destino.add(elemento);
+            movidos++;
+        }
+        return movidos;
+    }
+
+    /**
+     * Aproximado enquanto houver produtores ou consumidor ativos.
+     */
+    public int tamanho() {
+        return (int) Math.max(0, cauda.get() - cabeca.get());
+    }
+
+    public boolean isVazia() {
+        return tamanho() == 0;
+    }
+
+    public int capacidade() {
+        return mascara + 1;
+    }
+
+    /**
+     * @return Total de posicoes ja reservadas por produtores desde a criacao
+     */
+    public long getProduzidos() {
+        return cauda.get();
+    }
+}
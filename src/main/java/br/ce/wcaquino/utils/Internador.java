@@ -0,0 +1,78 @@
+package br.ce.wcaquino.utils;
+
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Function;
+
+/**
+ * Registro concorrente de instancias canonicas: {@link #canonizar} devolve sempre a mesma
+ * instancia para valores com a mesma chave. A chave e extraida uma unica vez, ao registrar,
+ * e deve ser imutavel (um {@link String}, por exemplo), de modo que alterar o valor depois
+ * nao muda a posicao dele no registro. As instancias sao mantidas por referencias fracas,
+ * entao o registro nao impede que o GC colete valores que ninguem mais usa; as entradas
+ * coletadas sao removidas nas chamadas seguintes.
+ */
+public class Internador<T> {
+
+    private final Function<? super T, ?> extrairChave;
+    private final ConcurrentMap<Object, Referencia<T>> canonicos = new ConcurrentHashMap<>();
+    private final ReferenceQueue<T> coletados = new ReferenceQueue<>();
+
+    public Internador(Function<? super T, ?> extrairChave) {
+        this.extrairChave = extrairChave;
+    }
+
+    public T canonizar(T valor) {
+        if (valor == null) {
+            return null;
+        }
+        limpar();
+
+        Object chave = extrairChave.apply(valor);
+        Referencia<T> nova = null;
+        while (true) {
+            Referencia<T> existente = canonicos.get(chave);
+            if (existente != null) {
+                T canonico = existente.get();
+                if (canonico != null) {
+                    return canonico;
+                }
+            }
+            if (nova == null) {
+                nova = new Referencia<>(valor, chave, coletados);
+            }
+            boolean registrada = existente == null
+                    ? canonicos.putIfAbsent(chave, nova) == null
+                    // coletado entre a busca e o get: substitui a entrada morta
+                    : canonicos.replace(chave, existente, nova);
+            if (registrada) {
+                return valor;
+            }
+        }
+    }
+
+    public int tamanho() {
+        limpar();
+        return canonicos.size();
+    }
+
+    private void limpar() {
+        Reference<? extends T> coletado;
+        while ((coletado = coletados.poll()) != null) {
+            canonicos.remove(((Referencia<?>) coletado).chave, coletado);
+        }
+    }
+
+    private static final class Referencia<T> extends WeakReference<T> {
+
+        private final Object chave;
+
+        Referencia(T valor, Object chave, ReferenceQueue<T> fila) {
+            super(valor, fila);
+            this.chave = chave;
+        }
+    }
+}
@@ -0,0 +1,40 @@
+package br.ce.wcaquino.utils;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Limita a quantidade de operacoes por segundo compartilhada entre threads. Cada
+ * chamada a {@link #adquirir()} reserva o proximo intervalo livre com CAS e aguarda
+ * ate o inicio dele, sem uso de locks.
+ */
+public class LimitadorTaxa {
+
+    private final long intervaloNanos;
+    private final AtomicLong proximaLiberacao = new AtomicLong(System.nanoTime());
+
+    public LimitadorTaxa(double operacoesPorSegundo) {
+        if (operacoesPorSegundo <= 0) {
+            throw new IllegalArgumentException("Taxa deve ser positiva");
+        }
+        this.intervaloNanos = (long) (TimeUnit.SECONDS.toNanos(1) / operacoesPorSegundo);
+    }
+
+    public void adquirir() {
+        long agora = System.nanoTime();
+        long liberacao;
+        while (true) {
+            long proxima = proximaLiberacao.get();
+            liberacao = Math.max(proxima, agora);
+            if (proximaLiberacao.compareAndSet(proxima, liberacao + intervaloNanos)) {
+                break;
+            }
+        }
+
+        long espera;
+        while ((espera = liberacao - System.nanoTime()) > 0) {
+            LockSupport.parkNanos(espera);
+        }
+    }
+}
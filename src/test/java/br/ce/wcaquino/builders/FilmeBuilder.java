@@ -31,6 +31,11 @@ public class FilmeBuilder {
 		return this;
 	}
 	
+	public FilmeBuilder comNome(String nome) {
+		filme.setNome(nome);
+		return this;
+	}
+	
 	public FilmeBuilder comValor(Double valor) {
 		filme.setPrecoLocacao(valor);
 		return this;
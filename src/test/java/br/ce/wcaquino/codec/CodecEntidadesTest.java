@@ -0,0 +1,130 @@
+package br.ce.wcaquino.codec;
+
+import br.ce.wcaquino.entidades.Filme;
+import br.ce.wcaquino.entidades.Locacao;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.util.Date;
+
+import static br.ce.wcaquino.builders.FilmeBuilder.umFilme;
+import static br.ce.wcaquino.builders.LocacaoBuilder.umLocacao;
+import static br.ce.wcaquino.builders.UsuarioBuilder.umUsuario;
+import static org.junit.jupiter.api.Assertions.*;
+
+class CodecEntidadesTest {
+
+    private CodecEntidades escrita;
+    private CodecEntidades leitura;
+
+    @BeforeEach
+    void setup() {
+        escrita = new CodecEntidades();
+        leitura = new CodecEntidades();
+    }
+
+    @Test
+    void deveCodificarEDecodificarLocacao() {
+        // cenario
+        Locacao locacao = umLocacao()
+                .comUsuario(umUsuario().comNome("Jo\u00e3o").agora())
+                .comListaFilmes(umFilme().comValor(4.5).agora(), umFilme().semEstoque().comValor(Math.PI).agora())
+                .comDataLocacao(new Date(-1_234_567L))
+                .comValor(7.25)
+                .agora();
+        locacao.setId(300L);
+        ByteBuffer buffer = ByteBuffer.allocateDirect(256);
+
+        // acao
+        escrita.codificar(locacao, buffer);
+        Locacao decodificada = leitura.decodificarLocacao(buffer.flip());
+
+        // verificacao
+        assertFalse(buffer.hasRemaining());
+        assertEquals(300L, decodificada.getId());
+        assertEquals("Jo\u00e3o", decodificada.getUsuario().getNome());
+        assertEquals(2, decodificada.getFilmes().size());
+        Filme filme = decodificada.getFilmes().get(1);
+        assertEquals("Filme 1", filme.getNome());
+        assertEquals(0, filme.getEstoque());
+        assertEquals(Math.PI, filme.getPrecoLocacao());
+        assertEquals(locacao.getDataLocacao(), decodificada.getDataLocacao());
+        assertEquals(locacao.getDataRetorno(), decodificada.getDataRetorno());
+        assertEquals(7.25, decodificada.getValor());
+    }
+
+    @Test
+    void deveCodificarIdsDoCatalogo() {
+        // cenario
+        Locacao locacao = umLocacao().comValor(8.0).agora();
+        locacao.setFilmes(null);
+        locacao.setIdsFilmes(new int[]{0, 127, 300_000});
+        ByteBuffer buffer = ByteBuffer.allocate(64);
+
+        // acao
+        escrita.codificar(locacao, buffer);
+        Locacao decodificada = leitura.decodificarLocacao(buffer.flip());
+
+        // verificacao
+        assertNull(decodificada.getFilmes());
+        assertArrayEquals(new int[]{0, 127, 300_000}, decodificada.getIdsFilmes());
+        assertEquals(8.0, decodificada.getValor());
+    }
+
+    @Test
+    void deveManterCamposNulos() {
+        // cenario
+        Locacao locacao = new Locacao();
+        locacao.setFilmes(java.util.List.of(new Filme(null, null, 0)));
+        ByteBuffer buffer = ByteBuffer.allocate(64);
+
+        // acao
+        escrita.codificar(locacao, buffer);
+        Locacao decodificada = leitura.decodificarLocacao(buffer.flip());
+
+        // verificacao
+        assertNull(decodificada.getId());
+        assertNull(decodificada.getUsuario());
+        assertNull(decodificada.getDataRetorno());
+        assertNull(decodificada.getFilmes().get(0).getNome());
+        assertNull(decodificada.getFilmes().get(0).getEstoque());
+    }
+
+    @Test
+    void deveReferenciarTextosRepetidosPeloDicionario() {
+        // cenario
+        ByteBuffer buffer = ByteBuffer.allocate(512);
+        Locacao primeira = umLocacao().agora();
+        Locacao segunda = umLocacao().agora();
+
+        // acao
+        escrita.codificar(primeira, buffer);
+        int tamanhoPrimeira = buffer.position();
+        escrita.codificar(segunda, buffer);
+        int tamanhoSegunda = buffer.position() - tamanhoPrimeira;
+
+        buffer.flip();
+        leitura.decodificarLocacao(buffer);
+        Locacao decodificada = leitura.decodificarLocacao(buffer);
+
+        // verificacao
+        assertTrue(tamanhoPrimeira < 48, "tamanho: " + tamanhoPrimeira);
+        assertTrue(tamanhoSegunda < tamanhoPrimeira - "Usuario 1".length());
+        assertEquals("Usuario 1", decodificada.getUsuario().getNome());
+        assertEquals("Filme 1", decodificada.getFilmes().get(0).getNome());
+    }
+
+    @Test
+    void deveDesfazerDicionarioQuandoFaltarEspaco() {
+        // cenario
+        ByteBuffer pequeno = ByteBuffer.allocate(12);
+
+        // acao
+        assertThrows(BufferOverflowException.class, () -> escrita.codificar(umLocacao().agora(), pequeno));
+
+        // verificacao
+        assertEquals(0, escrita.tamanhoDicionario());
+    }
+}
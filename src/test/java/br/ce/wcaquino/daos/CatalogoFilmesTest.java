@@ -0,0 +1,121 @@
+package br.ce.wcaquino.daos;
+
+import br.ce.wcaquino.entidades.Filme;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CatalogoFilmesTest {
+
+    @Test
+    void deveConsultarFilmesPeloId() {
+        // cenario
+        CatalogoFilmes catalogo = new CatalogoFilmes(2);
+
+        // acao
+        int matrix = catalogo.adicionar("Matrix", 3, 450);
+        int alien = catalogo.adicionar("Alien, o oitavo passageiro", 0, 399);
+
+        // verificacao
+        assertEquals(0, matrix);
+        assertEquals(1, alien);
+        assertEquals(2, catalogo.tamanho());
+        assertEquals("Alien, o oitavo passageiro", catalogo.nome(alien));
+        assertTrue(catalogo.nomeIgual(matrix, new StringBuilder("Matrix")));
+        assertFalse(catalogo.nomeIgual(matrix, "Matri"));
+        assertEquals(3, catalogo.estoque(matrix));
+        assertEquals(399, catalogo.precoCentavos(alien));
+
+        Filme filme = catalogo.paraFilme(matrix);
+        assertEquals("Matrix", filme.getNome());
+        assertEquals(4.5, filme.getPrecoLocacao());
+
+        assertThrows(IllegalStateException.class, () -> catalogo.adicionar("Cheio", 1, 1));
+        assertThrows(IndexOutOfBoundsException.class, () -> catalogo.estoque(2));
+    }
+
+    @Test
+    void deveIterarPorTodosOsIds() {
+        // cenario
+        CatalogoFilmes catalogo = new CatalogoFilmes(100);
+        for (int i = 0; i < 100; i++) {
+            catalogo.adicionar("Filme " + i, i, 100L * i);
+        }
+        AtomicInteger estoqueTotal = new AtomicInteger();
+
+        // acao
+        catalogo.paraCada(id -> estoqueTotal.addAndGet(catalogo.estoque(id)));
+
+        // verificacao
+        assertEquals(4950, estoqueTotal.get());
+        assertEquals("Filme 99", catalogo.nome(99));
+    }
+
+    @Test
+    void deveReservarTodosOuNenhum() {
+        // cenario
+        CatalogoFilmes catalogo = new CatalogoFilmes(2);
+        int comEstoque = catalogo.adicionar("Com estoque", 2, 400);
+        int semEstoque = catalogo.adicionar("Sem estoque", 0, 400);
+
+        // acao
+        int falha = catalogo.reservarTodos(new int[]{comEstoque, comEstoque, semEstoque});
+
+        // verificacao
+        assertEquals(2, falha);
+        assertEquals(2, catalogo.estoque(comEstoque));
+        assertEquals(-1, catalogo.reservarTodos(new int[]{comEstoque, comEstoque}));
+        assertEquals(0, catalogo.estoque(comEstoque));
+    }
+
+    @Test
+    void naoDeveReservarNadaQuandoUmIdNaoExistir() {
+        // cenario
+        CatalogoFilmes catalogo = new CatalogoFilmes(2);
+        int filme = catalogo.adicionar("Filme", 2, 400);
+
+        // acao
+        assertThrows(IndexOutOfBoundsException.class, () -> catalogo.reservarTodos(new int[]{filme, 7}));
+
+        // verificacao
+        assertEquals(2, catalogo.estoque(filme));
+    }
+
+    @Test
+    void naoDeveReservarAlemDoEstoqueEmParalelo() throws Exception {
+        // cenario
+        CatalogoFilmes catalogo = new CatalogoFilmes(1);
+        int id = catalogo.adicionar("Disputado", 1_000, 400);
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        List<Future<Integer>> tarefas = new ArrayList<>();
+
+        // acao
+        for (int t = 0; t < 4; t++) {
+            tarefas.add(executor.submit(() -> {
+                int reservadas = 0;
+                for (int i = 0; i < 500; i++) {
+                    if (catalogo.reservar(id, 1)) {
+                        reservadas++;
+                    }
+                }
+                return reservadas;
+            }));
+        }
+        int total = 0;
+        for (Future<Integer> tarefa : tarefas) {
+            total += tarefa.get();
+        }
+        executor.shutdown();
+
+        // verificacao
+        assertEquals(1_000, total);
+        assertEquals(0, catalogo.estoque(id));
+    }
+}
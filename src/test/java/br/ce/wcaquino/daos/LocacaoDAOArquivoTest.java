@@ -0,0 +1,287 @@
+package br.ce.wcaquino.daos;
+
+import br.ce.wcaquino.entidades.Locacao;
+import br.ce.wcaquino.entidades.Prorrogacao;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static br.ce.wcaquino.builders.FilmeBuilder.umFilme;
+import static br.ce.wcaquino.builders.LocacaoBuilder.umLocacao;
+import static br.ce.wcaquino.builders.UsuarioBuilder.umUsuario;
+import static org.junit.jupiter.api.Assertions.*;
+
+class LocacaoDAOArquivoTest {
+
+    @TempDir
+    Path diretorio;
+
+    @Test
+    void deveRecuperarLocacoesAoReabrir() throws Exception {
+        // cenario
+        Locacao locacao = umLocacao()
+                .comUsuario(umUsuario().comNome("Jose").agora())
+                .comListaFilmes(umFilme().comValor(5.0).agora(), umFilme().semEstoque().agora())
+                .comValor(9.0)
+                .atrasado()
+                .agora();
+
+        try (LocacaoDAOArquivo dao = new LocacaoDAOArquivo(diretorio)) {
+            dao.salvar(locacao);
+            dao.salvar(umLocacao().agora());
+        }
+
+        // acao
+        try (LocacaoDAOArquivo dao = new LocacaoDAOArquivo(diretorio)) {
+            List<Locacao> pendentes = ordenadasPorId(dao.obterLocacoesPendentes());
+
+            // verificacao
+            assertEquals(2, pendentes.size());
+            Locacao recuperada = pendentes.get(0);
+            assertEquals(1L, recuperada.getId());
+            assertEquals("Jose", recuperada.getUsuario().getNome());
+            assertEquals(2, recuperada.getFilmes().size());
+            assertEquals(5.0, recuperada.getFilmes().get(0).getPrecoLocacao());
+            assertEquals(0, recuperada.getFilmes().get(1).getEstoque());
+            assertEquals(locacao.getDataRetorno(), recuperada.getDataRetorno());
+            assertEquals(9.0, recuperada.getValor());
+            assertEquals(1, dao.obterLocacoesAtrasadas(Instant.now()).count());
+
+            dao.salvar(umLocacao().agora());
+            assertEquals(3L, ordenadasPorId(dao.obterLocacoesPendentes()).get(2).getId());
+        }
+    }
+
+    @Test
+    void deveCompartilharUsuariosEFilmesAoRecuperar() throws Exception {
+        // cenario
+        try (LocacaoDAOArquivo dao = new LocacaoDAOArquivo(diretorio, 512, 0)) {
+            for (int i = 0; i < 20; i++) {
+                dao.salvar(umLocacao()
+                        .comUsuario(umUsuario().comNome("Usuario " + (i % 2)).agora())
+                        .comListaFilmes(umFilme().agora())
+                        .agora());
+            }
+        }
+
+        // acao
+        try (LocacaoDAOArquivo dao = new LocacaoDAOArquivo(diretorio, 512, 0)) {
+            List<Locacao> pendentes = ordenadasPorId(dao.obterLocacoesPendentes());
+
+            // verificacao
+            assertTrue(dao.quantidadeSegmentos() > 1);
+            assertSame(pendentes.get(0).getUsuario(), pendentes.get(18).getUsuario());
+            assertSame(pendentes.get(1).getUsuario(), pendentes.get(19).getUsuario());
+            assertNotSame(pendentes.get(0).getUsuario(), pendentes.get(1).getUsuario());
+            assertSame(pendentes.get(0).getFilmes().get(0), pendentes.get(19).getFilmes().get(0));
+        }
+    }
+
+    @Test
+    void deveManterOEstoqueDeCadaFilmeAoCompartilharInstancias() throws Exception {
+        // cenario
+        try (LocacaoDAOArquivo dao = new LocacaoDAOArquivo(diretorio)) {
+            dao.salvar(umLocacao().comListaFilmes(umFilme().agora()).agora());
+            dao.salvar(umLocacao().comListaFilmes(umFilme().semEstoque().agora()).agora());
+            dao.salvar(umLocacao().comListaFilmes(umFilme().agora()).agora());
+        }
+
+        // acao
+        try (LocacaoDAOArquivo dao = new LocacaoDAOArquivo(diretorio)) {
+            List<Locacao> pendentes = ordenadasPorId(dao.obterLocacoesPendentes());
+
+            // verificacao
+            assertEquals(2, pendentes.get(0).getFilmes().get(0).getEstoque());
+            assertEquals(0, pendentes.get(1).getFilmes().get(0).getEstoque());
+            assertSame(pendentes.get(0).getFilmes().get(0), pendentes.get(2).getFilmes().get(0));
+            assertNotSame(pendentes.get(0).getFilmes().get(0), pendentes.get(1).getFilmes().get(0));
+        }
+    }
+
+    @Test
+    void devePersistirProrrogacoesComoAlteracaoEIncorporarAoCompactar() throws Exception {
+        // cenario
+        Locacao atrasada = umLocacao().atrasado().agora();
+        Date novaData = new Date(System.currentTimeMillis() + 86_400_000L * 3);
+        try (LocacaoDAOArquivo dao = new LocacaoDAOArquivo(diretorio)) {
+            dao.salvar(atrasada);
+            dao.salvar(umLocacao().agora());
+
+            // acao
+            List<Prorrogacao> aplicadas = dao.registrarProrrogacoes(List.of(
+                    new Prorrogacao(atrasada, 1, novaData, 12.0),
+                    new Prorrogacao(atrasada, 1, novaData, 12.0)));
+            assertEquals(1, aplicadas.size());
+        }
+
+        // verificacao
+        try (LocacaoDAOArquivo dao = new LocacaoDAOArquivo(diretorio)) {
+            Locacao recuperada = ordenadasPorId(dao.obterLocacoesPendentes()).get(0);
+            assertEquals(novaData, recuperada.getDataRetorno());
+            assertEquals(1, recuperada.getVersao());
+            assertEquals(12.0, recuperada.getValorProrrogacoes());
+            assertEquals(0, dao.obterLocacoesAtrasadas(Instant.now()).count());
+
+            dao.compactar();
+        }
+        try (LocacaoDAOArquivo dao = new LocacaoDAOArquivo(diretorio)) {
+            Locacao compactada = ordenadasPorId(dao.obterLocacoesPendentes()).get(0);
+            assertEquals(novaData, compactada.getDataRetorno());
+            assertEquals(1, compactada.getVersao());
+            assertEquals(4.0, compactada.getValor());
+            assertEquals(12.0, compactada.getValorProrrogacoes());
+        }
+    }
+
+    @Test
+    void devePersistirDevolucao() throws Exception {
+        // cenario
+        Locacao devolvida = umLocacao().agora();
+        try (LocacaoDAOArquivo dao = new LocacaoDAOArquivo(diretorio)) {
+            dao.salvar(devolvida);
+            dao.salvar(umLocacao().agora());
+
+            // acao
+            assertTrue(dao.registrarDevolucao(devolvida));
+        }
+
+        // verificacao
+        try (LocacaoDAOArquivo dao = new LocacaoDAOArquivo(diretorio)) {
+            assertEquals(List.of(2L), ids(dao.obterLocacoesPendentes()));
+        }
+    }
+
+    @Test
+    void deveCriarNovosSegmentosECompactar() throws Exception {
+        // cenario
+        try (LocacaoDAOArquivo dao = new LocacaoDAOArquivo(diretorio, 512, 0)) {
+            for (int i = 0; i < 20; i++) {
+                Locacao locacao = umLocacao().agora();
+                dao.salvar(locacao);
+                if (i % 4 != 0) {
+                    dao.registrarDevolucao(locacao);
+                }
+            }
+            assertTrue(dao.quantidadeSegmentos() > 1);
+
+            // acao
+            dao.compactar();
+
+            // verificacao
+            assertEquals(1, dao.quantidadeSegmentos());
+        }
+
+        try (LocacaoDAOArquivo dao = new LocacaoDAOArquivo(diretorio, 512, 0)) {
+            assertEquals(List.of(1L, 5L, 9L, 13L, 17L), ids(dao.obterLocacoesPendentes()));
+        }
+    }
+
+    @Test
+    void naoDeveReutilizarIdsAposCompactarSemPendentes() throws Exception {
+        // cenario
+        try (LocacaoDAOArquivo dao = new LocacaoDAOArquivo(diretorio)) {
+            Locacao locacao = umLocacao().agora();
+            dao.salvar(umLocacao().agora());
+            dao.salvar(locacao);
+            dao.registrarDevolucao(locacao);
+            dao.registrarDevolucao(dao.obterLocacoesPendentes().get(0));
+
+            // acao
+            dao.compactar();
+        }
+
+        // verificacao
+        try (LocacaoDAOArquivo dao = new LocacaoDAOArquivo(diretorio)) {
+            Locacao nova = umLocacao().agora();
+            dao.salvar(nova);
+            assertEquals(3L, nova.getId());
+        }
+    }
+
+    @Test
+    void naoDeveManterNoDicionarioTextosDeRegistroRecusado() throws Exception {
+        // cenario
+        List<Long> salvas = new ArrayList<>();
+        try (LocacaoDAOArquivo dao = new LocacaoDAOArquivo(diretorio, 256, 0)) {
+            // tamanhos em volta do limite do segmento, inclusive logo apos um segmento novo
+            for (int tamanho = 200; tamanho <= 260; tamanho++) {
+                Locacao grande = umLocacao()
+                        .comUsuario(umUsuario().comNome("Usuario " + tamanho).agora())
+                        .comListaFilmes(umFilme().comNome("F".repeat(tamanho)).agora())
+                        .agora();
+
+                // acao
+                try {
+                    dao.salvar(grande);
+                    salvas.add(grande.getId());
+                } catch (IllegalArgumentException e) {
+                    // registro maior que o segmento
+                }
+                Locacao seguinte = umLocacao().comUsuario(umUsuario().comNome("Usuario " + tamanho).agora()).agora();
+                dao.salvar(seguinte);
+                salvas.add(seguinte.getId());
+            }
+        }
+
+        // verificacao
+        try (LocacaoDAOArquivo dao = new LocacaoDAOArquivo(diretorio, 256, 0)) {
+            assertEquals(salvas, ids(dao.obterLocacoesPendentes()));
+        }
+    }
+
+    @Test
+    void deveDescartarRegistroIncompletoNoFinalDoSegmento() throws Exception {
+        // cenario
+        try (LocacaoDAOArquivo dao = new LocacaoDAOArquivo(diretorio, 4096, 1)) {
+            dao.salvar(umLocacao().agora());
+            dao.salvar(umLocacao().agora());
+        }
+        corromperUltimoRegistro();
+
+        // acao
+        try (LocacaoDAOArquivo dao = new LocacaoDAOArquivo(diretorio, 4096, 1)) {
+            // verificacao
+            assertEquals(List.of(1L), ids(dao.obterLocacoesPendentes()));
+
+            dao.salvar(umLocacao().agora());
+        }
+
+        try (LocacaoDAOArquivo dao = new LocacaoDAOArquivo(diretorio, 4096, 1)) {
+            assertEquals(List.of(1L, 2L), ids(dao.obterLocacoesPendentes()));
+        }
+    }
+
+    private void corromperUltimoRegistro() throws IOException {
+        Path segmento;
+        try (Stream<Path> arquivos = Files.list(diretorio)) {
+            segmento = arquivos.findFirst().orElseThrow();
+        }
+        try (FileChannel canal = FileChannel.open(segmento, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            ByteBuffer tamanho = ByteBuffer.allocate(Integer.BYTES);
+            canal.read(tamanho, 0);
+            int segundoRegistro = 8 + tamanho.flip().getInt();
+            canal.write(ByteBuffer.wrap(new byte[]{(byte) 0xFF}), segundoRegistro + 12);
+        }
+    }
+
+    private static List<Locacao> ordenadasPorId(List<Locacao> locacoes) {
+        return locacoes.stream().sorted(Comparator.comparing(Locacao::getId)).collect(Collectors.toList());
+    }
+
+    private static List<Long> ids(List<Locacao> locacoes) {
+        return locacoes.stream().map(Locacao::getId).sorted().collect(Collectors.toList());
+    }
+}
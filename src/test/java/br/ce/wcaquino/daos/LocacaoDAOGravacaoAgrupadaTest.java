@@ -0,0 +1,183 @@
+package br.ce.wcaquino.daos;
+
+import br.ce.wcaquino.daos.LocacaoDAOGravacaoAgrupada.Durabilidade;
+import br.ce.wcaquino.entidades.Locacao;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static br.ce.wcaquino.builders.LocacaoBuilder.umLocacao;
+import static org.junit.jupiter.api.Assertions.*;
+
+class LocacaoDAOGravacaoAgrupadaTest {
+
+    private final List<Integer> tamanhosLotes = new CopyOnWriteArrayList<>();
+    private final LocacaoDAOMemoria gravadas = new LocacaoDAOMemoria() {
+        @Override
+        public void salvarTodos(List<Locacao> locacoes) {
+            tamanhosLotes.add(locacoes.size());
+            super.salvarTodos(locacoes);
+        }
+    };
+
+    @Test
+    void deveGravarEmLotesPeloTamanho() throws Exception {
+        // cenario
+        try (LocacaoDAOGravacaoAgrupada dao = new LocacaoDAOGravacaoAgrupada(gravadas, 64, 5,
+                Duration.ofSeconds(30), Durabilidade.APOS_ENFILEIRAR)) {
+
+            // acao
+            for (int i = 0; i < 10; i++) {
+                dao.salvar(umLocacao().agora());
+            }
+
+            // verificacao
+            long limite = System.nanoTime() + Duration.ofSeconds(5).toNanos();
+            while (gravadas.obterLocacoesPendentes().size() < 10 && System.nanoTime() < limite) {
+                Thread.sleep(5);
+            }
+            assertEquals(10, gravadas.obterLocacoesPendentes().size());
+            assertEquals(List.of(5, 5), tamanhosLotes);
+        }
+    }
+
+    @Test
+    void deveGravarLoteIncompletoAoFimDaJanela() throws Exception {
+        // cenario
+        try (LocacaoDAOGravacaoAgrupada dao = new LocacaoDAOGravacaoAgrupada(gravadas, 64, 100,
+                Duration.ofMillis(20), Durabilidade.APOS_GRAVACAO)) {
+
+            // acao
+            dao.salvar(umLocacao().agora());
+
+            // verificacao
+            assertEquals(1, gravadas.obterLocacoesPendentes().size());
+            assertEquals(List.of(1), tamanhosLotes);
+        }
+    }
+
+    @Test
+    void deveGravarTudoAntesDeConsultar() throws Exception {
+        // cenario
+        try (LocacaoDAOGravacaoAgrupada dao = new LocacaoDAOGravacaoAgrupada(gravadas, 64, 100,
+                Duration.ofSeconds(30), Durabilidade.APOS_ENFILEIRAR)) {
+            dao.salvar(umLocacao().agora());
+            dao.salvar(umLocacao().agora());
+
+            // acao
+            List<Locacao> pendentes = dao.obterLocacoesPendentes();
+
+            // verificacao
+            assertEquals(2, pendentes.size());
+        }
+    }
+
+    @Test
+    void deveRepassarErroDoDelegadoQuandoConfirmaAposGravar() throws Exception {
+        // cenario
+        LocacaoDAO comFalha = new LocacaoDAOMemoria() {
+            @Override
+            public void salvarTodos(List<Locacao> locacoes) {
+                throw new IllegalStateException("Disco cheio");
+            }
+        };
+        try (LocacaoDAOGravacaoAgrupada dao = new LocacaoDAOGravacaoAgrupada(comFalha, 64, 1,
+                Duration.ofMillis(20), Durabilidade.APOS_GRAVACAO)) {
+
+            // acao
+            IllegalStateException erro = assertThrows(IllegalStateException.class,
+                    () -> dao.salvar(umLocacao().agora()));
+
+            // verificacao
+            assertEquals("Disco cheio", erro.getMessage());
+            assertEquals(1, dao.getFalhas());
+        }
+    }
+
+    @Test
+    void deveManterAGravadoraVivaQuandoODelegadoLancarError() throws Exception {
+        // cenario
+        LocacaoDAOMemoria falhaUmaVez = new LocacaoDAOMemoria() {
+            private boolean falhou;
+
+            @Override
+            public void salvarTodos(List<Locacao> locacoes) {
+                if (!falhou) {
+                    falhou = true;
+                    throw new AssertionError("Falha grave");
+                }
+                super.salvarTodos(locacoes);
+            }
+        };
+        try (LocacaoDAOGravacaoAgrupada dao = new LocacaoDAOGravacaoAgrupada(falhaUmaVez, 64, 1,
+                Duration.ofMillis(20), Durabilidade.APOS_GRAVACAO)) {
+
+            // acao
+            assertThrows(AssertionError.class, () -> dao.salvar(umLocacao().agora()));
+            dao.salvar(umLocacao().agora());
+
+            // verificacao
+            assertEquals(1, dao.getFalhas());
+            assertEquals(1, dao.obterLocacoesPendentes().size());
+        }
+    }
+
+    @Test
+    void deveDrenarAFilaAoFechar() throws Exception {
+        // cenario
+        LocacaoDAOGravacaoAgrupada dao = new LocacaoDAOGravacaoAgrupada(gravadas, 4, 100,
+                Duration.ofSeconds(30), Durabilidade.APOS_ENFILEIRAR);
+        for (int i = 0; i < 50; i++) {
+            dao.salvar(umLocacao().agora());
+        }
+
+        // acao
+        dao.close();
+
+        // verificacao
+        assertEquals(50, gravadas.obterLocacoesPendentes().size());
+        assertThrows(IllegalStateException.class, () -> dao.salvar(umLocacao().agora()));
+    }
+
+    @Test
+    void naoDevePerderGravacoesConcorrentesComOFechamento() throws Exception {
+        // cenario
+        LocacaoDAOGravacaoAgrupada dao = new LocacaoDAOGravacaoAgrupada(gravadas, 8, 4,
+                Duration.ofMillis(1), Durabilidade.APOS_GRAVACAO);
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        List<Future<Integer>> tarefas = new ArrayList<>();
+        for (int t = 0; t < 4; t++) {
+            tarefas.add(executor.submit(() -> {
+                int salvas = 0;
+                try {
+                    while (true) {
+                        dao.salvar(umLocacao().agora());
+                        salvas++;
+                    }
+                } catch (IllegalStateException e) {
+                    return salvas;
+                }
+            }));
+        }
+
+        // acao
+        Thread.sleep(20);
+        dao.close();
+
+        // verificacao
+        int total = 0;
+        for (Future<Integer> tarefa : tarefas) {
+            total += tarefa.get(10, TimeUnit.SECONDS);
+        }
+        executor.shutdown();
+        assertEquals(total, gravadas.obterLocacoesPendentes().size());
+        assertThrows(IllegalStateException.class, dao::descarregar);
+    }
+}
@@ -0,0 +1,135 @@
+package br.ce.wcaquino.daos;
+
+import br.ce.wcaquino.entidades.Locacao;
+import br.ce.wcaquino.entidades.Prorrogacao;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.temporal.ChronoUnit;
+import java.util.Date;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static br.ce.wcaquino.builders.LocacaoBuilder.umLocacao;
+import static org.junit.jupiter.api.Assertions.*;
+
+class LocacaoDAOMemoriaTest {
+
+    private static final Instant AGORA = Instant.parse("2026-10-18T12:00:00Z");
+
+    private LocacaoDAOMemoria dao;
+
+    @BeforeEach
+    void setup() {
+        dao = new LocacaoDAOMemoria(ZoneOffset.UTC);
+    }
+
+    @Test
+    void deveMoverLocacaoProrrogadaParaONovoVencimento() {
+        // cenario
+        Locacao locacao = umLocacao().comDataRetorno(Date.from(AGORA.minus(1, ChronoUnit.DAYS))).agora();
+        dao.salvar(locacao);
+        Date novaData = Date.from(AGORA.plus(2, ChronoUnit.DAYS));
+
+        // acao
+        List<Prorrogacao> aplicadas = dao.registrarProrrogacoes(List.of(
+                new Prorrogacao(locacao, 1, novaData, 8.0),
+                new Prorrogacao(locacao, 1, Date.from(AGORA.plus(9, ChronoUnit.DAYS)), 8.0)));
+
+        // verificacao
+        assertEquals(0, dao.obterLocacoesAtrasadas(AGORA).count());
+        assertEquals(1, dao.obterLocacoesPendentes().size());
+        assertEquals(novaData, locacao.getDataRetorno());
+        assertEquals(1, locacao.getVersao());
+        assertEquals(8.0, locacao.getValorProrrogacoes());
+        assertEquals(1, aplicadas.size());
+        assertEquals(novaData, aplicadas.get(0).getDataRetorno());
+    }
+
+    @Test
+    void deveRetornarApenasLocacoesAtrasadas() {
+        // cenario
+        Locacao vencidaOntem = comRetorno(AGORA.minus(1, ChronoUnit.DAYS));
+        Locacao vencidaHojeCedo = comRetorno(AGORA.minus(2, ChronoUnit.HOURS));
+        Locacao venceHojeMaisTarde = comRetorno(AGORA.plus(2, ChronoUnit.HOURS));
+        Locacao venceAmanha = comRetorno(AGORA.plus(1, ChronoUnit.DAYS));
+        List.of(venceAmanha, vencidaHojeCedo, venceHojeMaisTarde, vencidaOntem).forEach(dao::salvar);
+
+        // acao
+        List<Locacao> atrasadas = dao.obterLocacoesAtrasadas(AGORA).collect(Collectors.toList());
+
+        // verificacao
+        assertEquals(List.of(vencidaOntem, vencidaHojeCedo), atrasadas);
+        assertEquals(4, dao.obterLocacoesPendentes().size());
+    }
+
+    @Test
+    void naoDeveRetornarLocacaoDevolvida() {
+        // cenario
+        Locacao locacao = comRetorno(AGORA.minus(3, ChronoUnit.DAYS));
+        dao.salvar(locacao);
+
+        // acao
+        boolean devolvida = dao.registrarDevolucao(locacao);
+
+        // verificacao
+        assertTrue(devolvida);
+        assertFalse(dao.registrarDevolucao(locacao));
+        assertEquals(0, dao.obterLocacoesAtrasadas(AGORA).count());
+        assertTrue(dao.obterLocacoesPendentes().isEmpty());
+    }
+
+    @Test
+    void deveDescartarDiasSemPendentes() {
+        // cenario
+        Locacao ontem = comRetorno(AGORA.minus(1, ChronoUnit.DAYS));
+        Locacao anteontem = comRetorno(AGORA.minus(2, ChronoUnit.DAYS));
+        dao.salvar(ontem);
+        dao.salvar(anteontem);
+
+        // acao
+        dao.registrarDevolucao(ontem);
+        dao.registrarDevolucao(anteontem);
+        Locacao novamenteOntem = comRetorno(AGORA.minus(1, ChronoUnit.DAYS));
+        dao.salvar(novamenteOntem);
+
+        // verificacao
+        assertEquals(1, dao.diasComPendentes());
+        assertEquals(List.of(novamenteOntem), dao.obterLocacoesAtrasadas(AGORA).collect(Collectors.toList()));
+    }
+
+    @Test
+    void naoDevePerderLocacaoSalvaEnquantoODiaEsvazia() throws Exception {
+        // cenario
+        int quantidade = 2_000;
+        Locacao[] devolvidas = new Locacao[quantidade];
+        Locacao[] mantidas = new Locacao[quantidade];
+        for (int i = 0; i < quantidade; i++) {
+            devolvidas[i] = comRetorno(AGORA.minus(1, ChronoUnit.HOURS));
+            mantidas[i] = comRetorno(AGORA.minus(1, ChronoUnit.HOURS));
+        }
+
+        // acao
+        Thread devolucoes = new Thread(() -> {
+            for (Locacao locacao : devolvidas) {
+                dao.salvar(locacao);
+                dao.registrarDevolucao(locacao);
+            }
+        });
+        devolucoes.start();
+        for (Locacao locacao : mantidas) {
+            dao.salvar(locacao);
+        }
+        devolucoes.join();
+
+        // verificacao
+        assertEquals(quantidade, dao.obterLocacoesAtrasadas(AGORA).count());
+        assertEquals(1, dao.diasComPendentes());
+    }
+
+    private static Locacao comRetorno(Instant retorno) {
+        return umLocacao().comDataRetorno(Date.from(retorno)).agora();
+    }
+}
@@ -0,0 +1,73 @@
+package br.ce.wcaquino.metricas;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class HistogramaTest {
+
+    @Test
+    void deveMapearCadaValorParaAFaixaQueOContem() {
+        long[] valores = {0, 1, 31, 32, 33, 63, 64, 1_000, 123_456_789, Long.MAX_VALUE};
+        for (long valor : valores) {
+            int faixa = Histograma.faixa(valor);
+            assertTrue(faixa >= 0 && faixa < Histograma.FAIXAS, "faixa de " + valor);
+            assertTrue(Histograma.limiteSuperior(faixa) >= valor, "limite de " + valor);
+            assertTrue(faixa == 0 || Histograma.limiteSuperior(faixa - 1) < valor, "limite anterior de " + valor);
+        }
+    }
+
+    @Test
+    void deveCalcularPercentisComErroRelativoPequeno() {
+        // cenario
+        Histograma histograma = new Histograma();
+
+        // acao
+        for (long valor = 1; valor <= 100_000; valor++) {
+            histograma.registrar(valor * 1_000);
+        }
+        InstantaneoHistograma instantaneo = histograma.instantaneo();
+
+        // verificacao
+        assertEquals(100_000, instantaneo.getTotal());
+        assertEquals(100_000_000, instantaneo.getMaximo());
+        assertEquals(50_000_500, instantaneo.media(), 0.001);
+        assertEquals(50_000_000, instantaneo.percentil(50), 50_000_000 * 0.032);
+        assertEquals(99_000_000, instantaneo.percentil(99), 99_000_000 * 0.032);
+        assertEquals(100_000_000, instantaneo.percentil(100));
+        assertEquals(0, new Histograma().instantaneo().percentil(99));
+    }
+
+    @Test
+    void naoDevePerderRegistrosConcorrentes() throws Exception {
+        // cenario
+        Histograma histograma = new Histograma();
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        List<Future<?>> tarefas = new ArrayList<>();
+
+        // acao
+        for (int t = 0; t < 4; t++) {
+            tarefas.add(executor.submit(() -> {
+                for (int i = 0; i < 10_000; i++) {
+                    histograma.registrar(i);
+                }
+            }));
+        }
+        for (Future<?> tarefa : tarefas) {
+            tarefa.get();
+        }
+        executor.shutdown();
+
+        // verificacao
+        InstantaneoHistograma instantaneo = histograma.instantaneo();
+        assertEquals(40_000, instantaneo.getTotal());
+        assertEquals(9_999, instantaneo.getMaximo());
+        assertEquals(4L * 49_995_000, instantaneo.getSoma());
+    }
+}
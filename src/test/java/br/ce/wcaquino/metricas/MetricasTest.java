@@ -0,0 +1,44 @@
+package br.ce.wcaquino.metricas;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MetricasTest {
+
+    @Test
+    void deveExportarMetricasEmTexto() {
+        // cenario
+        Metricas metricas = new Metricas();
+        metricas.contador("locacao_alugar_sucesso_total").add(3);
+        Histograma histograma = metricas.histograma("locacao_alugar_spc_nanos");
+        histograma.registrar(10);
+        histograma.registrar(20);
+
+        // acao
+        String texto = metricas.instantaneo().exportarTexto();
+
+        // verificacao
+        assertTrue(texto.contains("# TYPE locacao_alugar_sucesso_total counter\nlocacao_alugar_sucesso_total 3\n"));
+        assertTrue(texto.contains("# TYPE locacao_alugar_spc_nanos summary\n"));
+        assertTrue(texto.contains("locacao_alugar_spc_nanos{quantile=\"0.5\"} 10\n"));
+        assertTrue(texto.contains("locacao_alugar_spc_nanos_sum 30\n"));
+        assertTrue(texto.contains("locacao_alugar_spc_nanos_count 2\n"));
+        assertTrue(texto.contains("locacao_alugar_spc_nanos_max 20\n"));
+    }
+
+    @Test
+    void naoDeveRegistrarNadaQuandoDesligada() {
+        // cenario
+        MetricasOperacao operacao = MetricasLocacao.DESLIGADA.getAluguel();
+
+        // acao
+        long inicio = operacao.iniciar();
+        operacao.registrar(Fase.SPC, inicio);
+        operacao.sucesso(inicio);
+
+        // verificacao
+        assertFalse(operacao.isAtiva());
+        assertEquals(0, inicio);
+    }
+}
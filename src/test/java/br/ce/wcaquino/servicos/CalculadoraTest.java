@@ -4,7 +4,15 @@ import br.ce.wcaquino.exceptions.NaoPodeDividirPorZeroException;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 
 class CalculadoraTest {
@@ -75,4 +83,171 @@ class CalculadoraTest {
         assertEquals(2, resultado);
     }
 
+    @Test
+    void deveSomarESubtrairArraysElementoAElemento() {
+        //cenario
+        int[] a = {1, 2, 3, Integer.MAX_VALUE};
+        int[] b = {4, 5, 6, 1};
+        int[] soma = new int[4];
+        int[] diferenca = new int[4];
+
+        //acao
+        calc.somar(a, b, soma);
+        calc.subtrair(a, b, diferenca);
+
+        //verificacao
+        assertArrayEquals(new int[]{5, 7, 9, Integer.MIN_VALUE}, soma);
+        assertArrayEquals(new int[]{-3, -3, -3, Integer.MAX_VALUE - 1}, diferenca);
+    }
+
+    @Test
+    void deveSomarESubtrairArraysDeLong() {
+        //cenario
+        long[] a = {10L, 1L << 40};
+        long[] b = {3L, 1L << 40};
+        long[] soma = new long[2];
+        long[] diferenca = new long[2];
+
+        //acao
+        calc.somar(a, b, soma);
+        calc.subtrairExato(a, b, diferenca);
+
+        //verificacao
+        assertArrayEquals(new long[]{13L, 1L << 41}, soma);
+        assertArrayEquals(new long[]{7L, 0L}, diferenca);
+    }
+
+    @Test
+    void deveLancarExcecaoQuandoSomaExataEstourar() {
+        //cenario
+        int[] a = new int[100];
+        int[] b = new int[100];
+        a[57] = Integer.MAX_VALUE;
+        b[57] = 1;
+
+        //acao e verificacao
+        ArithmeticException soma = assertThrows(ArithmeticException.class, () -> calc.somarExato(a, b, new int[100]));
+        assertEquals("Estouro na soma do indice 57", soma.getMessage());
+        ArithmeticException subtracao = assertThrows(ArithmeticException.class,
+                () -> calc.subtrairExato(new long[]{0, Long.MIN_VALUE}, new long[]{0, 1}, new long[2]));
+        assertEquals("Estouro na subtracao do indice 1", subtracao.getMessage());
+        ArithmeticException reducao = assertThrows(ArithmeticException.class,
+                () -> calc.somarExato(new long[]{1, Long.MAX_VALUE, 1}));
+        assertEquals("Estouro na soma do indice 1", reducao.getMessage());
+    }
+
+    @Test
+    void deveDividirArraysInformandoDivisoresZero() {
+        //cenario
+        int[] a = {6, 7, 8, 9};
+        int[] b = {3, 0, 2, 0};
+        int[] destino = new int[4];
+
+        //acao
+        int[] zeros = calc.divide(a, b, destino);
+
+        //verificacao
+        assertArrayEquals(new int[]{2, 0, 4, 0}, destino);
+        assertArrayEquals(new int[]{1, 3}, zeros);
+    }
+
+    @Test
+    void deveRetornarConstanteQuandoNenhumDivisorForZero() {
+        //cenario
+        long[] destino = new long[2];
+
+        //acao
+        int[] zeros = calc.divide(new long[]{10, 20}, new long[]{5, 4}, destino);
+
+        //verificacao
+        assertSame(Calculadora.SEM_DIVISORES_ZERO, zeros);
+        assertArrayEquals(new long[]{2, 5}, destino);
+    }
+
+    @Test
+    void deveReduzirArrays() {
+        //cenario
+        int[] valores = {Integer.MAX_VALUE, Integer.MAX_VALUE, -5};
+
+        //acao e verificacao
+        assertEquals(2L * Integer.MAX_VALUE - 5, calc.somar(valores));
+        assertEquals(-5, calc.minimo(valores));
+        assertEquals(Integer.MAX_VALUE, calc.maximo(valores));
+        assertEquals(6L, calc.somarExato(new long[]{1, 2, 3}));
+        assertEquals(Long.MIN_VALUE, calc.somar(new long[]{Long.MAX_VALUE, 1}));
+    }
+
+    @Test
+    void deveRecusarMinimoEMaximoDeArrayVazio() {
+        assertThrows(IllegalArgumentException.class, () -> calc.minimo(new int[0]));
+        assertThrows(IllegalArgumentException.class, () -> calc.maximo(new int[0]));
+    }
+
+    @Test
+    void deveRecusarArraysDeTamanhosDiferentes() {
+        assertThrows(IllegalArgumentException.class, () -> calc.somar(new int[2], new int[3], new int[2]));
+    }
+
+    @Test
+    void deveDividirTextoSemExcecoes() {
+        //cenario
+        ResultadoDivisao resultado = new ResultadoDivisao();
+
+        //acao e verificacao
+        assertEquals(-3, calc.divide("-7", "+2", resultado).getValor());
+        assertEquals(ResultadoDivisao.Status.OK, resultado.getStatus());
+        assertEquals(Integer.MIN_VALUE, calc.divide("-2147483648", "1", resultado).getValor());
+
+        assertEquals(ResultadoDivisao.Status.ENTRADA_INVALIDA, calc.divide("a", "b", resultado).getStatus());
+        assertEquals(ResultadoDivisao.Status.ENTRADA_INVALIDA, calc.divide("2147483648", "1", resultado).getStatus());
+        assertEquals(ResultadoDivisao.Status.ENTRADA_INVALIDA, calc.divide("-", "1", resultado).getStatus());
+        assertEquals(ResultadoDivisao.Status.ENTRADA_INVALIDA, calc.divide("", "1", resultado).getStatus());
+        assertEquals(ResultadoDivisao.Status.DIVISAO_POR_ZERO, calc.divide("6", "0", resultado).getStatus());
+        assertFalse(resultado.isOk());
+    }
+
+    @Test
+    void deveDividirIntervaloDoTextoEDoBuffer() {
+        //cenario
+        String texto = "xx84/12yy";
+        ByteBuffer buffer = ByteBuffer.wrap(texto.getBytes(StandardCharsets.US_ASCII));
+        ResultadoDivisao resultado = new ResultadoDivisao();
+
+        //acao e verificacao
+        assertEquals(7, calc.divide(texto, 2, 4, 5, 7, resultado).getValor());
+        assertEquals(7, calc.divide(buffer, 2, 4, 5, 7, resultado).getValor());
+        assertEquals(0, buffer.position());
+    }
+
+    @Test
+    void deveProcessarBufferDeLinhas() {
+        //cenario
+        String entrada = "10;2\r\nx;1\n\n9;0\n7\n-9;3";
+        List<String> saida = new ArrayList<>();
+        Calculadora.ConsumidorDivisao consumidor = (linha, status, valor) -> saida.add(linha + ":" + status + ":" + valor);
+
+        //acao
+        int processadas = calc.dividirLinhas(ByteBuffer.wrap(entrada.getBytes(StandardCharsets.US_ASCII)), ';', consumidor);
+
+        //verificacao
+        List<String> esperado = List.of("1:OK:5", "2:ENTRADA_INVALIDA:0", "4:DIVISAO_POR_ZERO:0",
+                "5:ENTRADA_INVALIDA:0", "6:OK:-3");
+        assertEquals(5, processadas);
+        assertEquals(esperado, saida);
+
+        saida.clear();
+        assertEquals(5, calc.dividirLinhas(entrada, ';', consumidor));
+        assertEquals(esperado, saida);
+    }
+
+    @Test
+    void deveRecusarSeparadorNaoAsciiNoBuffer() {
+        //cenario
+        ByteBuffer buffer = ByteBuffer.wrap(new byte[]{'8', (byte) 0xA7, '2'});
+
+        //acao e verificacao
+        assertThrows(IllegalArgumentException.class, () -> calc.dividirLinhas(buffer, '\u00A7', (l, s, v) -> { }));
+        assertThrows(IllegalArgumentException.class, () -> calc.dividirLinhas(buffer, '\u2027', (l, s, v) -> { }));
+    }
+
 }
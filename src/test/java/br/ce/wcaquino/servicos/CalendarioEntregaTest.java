@@ -0,0 +1,50 @@
+package br.ce.wcaquino.servicos;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.StringReader;
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CalendarioEntregaTest {
+
+    // 2026-10-18 e um domingo
+    private static final LocalDate DOMINGO = LocalDate.of(2026, 10, 18);
+
+    @Test
+    void devePularDomingo() {
+        CalendarioEntrega calendario = CalendarioEntrega.criar("SP", DOMINGO.toEpochDay() - 10, 30, List.of());
+
+        assertEquals(DOMINGO.plusDays(1).toEpochDay(), calendario.proximoDiaUtil(DOMINGO.toEpochDay()));
+        assertEquals(DOMINGO.minusDays(1).toEpochDay(), calendario.proximoDiaUtil(DOMINGO.minusDays(1).toEpochDay()));
+    }
+
+    @Test
+    void devePularSequenciaDeFeriadosEDomingo() {
+        List<LocalDate> feriados = List.of(DOMINGO.minusDays(1), DOMINGO.plusDays(1));
+        CalendarioEntrega calendario = CalendarioEntrega.criar("SP", DOMINGO.toEpochDay() - 10, 30, feriados);
+
+        assertEquals(DOMINGO.plusDays(2).toEpochDay(), calendario.proximoDiaUtil(DOMINGO.minusDays(1).toEpochDay()));
+        assertFalse(calendario.isDiaUtil(DOMINGO.plusDays(1).toEpochDay()));
+    }
+
+    @Test
+    void deveCalcularForaDoIntervaloPreCalculado() {
+        LocalDate segundaFeriado = DOMINGO.plusWeeks(260).plusDays(1);
+        CalendarioEntrega calendario = CalendarioEntrega.criar("SP", DOMINGO.toEpochDay(), 7, List.of(segundaFeriado));
+
+        assertEquals(segundaFeriado.plusDays(1).toEpochDay(), calendario.proximoDiaUtil(segundaFeriado.minusDays(1).toEpochDay()));
+        assertEquals(DOMINGO.minusDays(6).toEpochDay(), calendario.proximoDiaUtil(DOMINGO.minusDays(7).toEpochDay()));
+    }
+
+    @Test
+    void deveCarregarFeriadosIgnorandoComentarios() throws Exception {
+        String arquivo = "# feriados nacionais\n2026-11-02 # finados\n\n2026-11-15\n";
+
+        List<LocalDate> feriados = CalendarioEntrega.carregarFeriados(new StringReader(arquivo));
+
+        assertEquals(List.of(LocalDate.of(2026, 11, 2), LocalDate.of(2026, 11, 15)), feriados);
+    }
+}
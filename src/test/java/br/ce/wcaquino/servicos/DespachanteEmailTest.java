@@ -0,0 +1,151 @@
+package br.ce.wcaquino.servicos;
+
+import br.ce.wcaquino.entidades.Usuario;
+import br.ce.wcaquino.servicos.DespachanteEmail.PoliticaFilaCheia;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Captor;
+import org.mockito.Mock;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+
+import static br.ce.wcaquino.builders.UsuarioBuilder.umUsuario;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.*;
+import static org.mockito.MockitoAnnotations.openMocks;
+
+class DespachanteEmailTest {
+
+    @Mock
+    private EmailService emailService;
+    @Captor
+    private ArgumentCaptor<Collection<Usuario>> lotes;
+
+    @BeforeEach
+    void setup() {
+        openMocks(this);
+    }
+
+    @Test
+    void deveNotificarCadaUsuarioUmaVezPorRodadaEmLotes() {
+        // cenario
+        Usuario usuario1 = umUsuario().agora();
+        Usuario usuario2 = umUsuario().comNome("Usuario 2").agora();
+        List<Usuario> recebidos = new ArrayList<>();
+        doAnswer(invocacao -> recebidos.addAll(invocacao.getArgument(0)))
+                .when(emailService).notificarAtrasos(anyCollection());
+        DespachanteEmail despachante = new DespachanteEmail(emailService, 10, 5, PoliticaFilaCheia.DESCARTAR);
+        EmailService rodada = despachante.novaRodada();
+
+        // acao
+        rodada.notificarAtraso(usuario1);
+        rodada.notificarAtraso(usuario1);
+        rodada.notificarAtraso(usuario2);
+        rodada.notificarAtraso(usuario1);
+        despachante.close();
+
+        // verificacao
+        assertEquals(List.of(usuario1, usuario2), recebidos);
+        assertEquals(2, despachante.getDuplicadas());
+        assertEquals(2, despachante.getEnviadas());
+        verify(emailService, never()).notificarAtraso(any());
+    }
+
+    @Test
+    void deveNotificarNovamenteEmNovaRodada() {
+        // cenario
+        Usuario usuario = umUsuario().agora();
+        DespachanteEmail despachante = new DespachanteEmail(emailService, 10, 5, PoliticaFilaCheia.DESCARTAR);
+
+        // acao
+        despachante.novaRodada().notificarAtraso(usuario);
+        despachante.novaRodada().notificarAtraso(usuario);
+        despachante.close();
+
+        // verificacao
+        assertEquals(0, despachante.getDuplicadas());
+        assertEquals(2, despachante.getEnviadas());
+    }
+
+    @Test
+    void deveManterDeduplicacaoDeCadaRodadaQuandoSimultaneas() {
+        // cenario
+        Usuario usuario = umUsuario().agora();
+        DespachanteEmail despachante = new DespachanteEmail(emailService, 10, 5, PoliticaFilaCheia.DESCARTAR);
+        EmailService primeira = despachante.novaRodada();
+
+        // acao
+        primeira.notificarAtraso(usuario);
+        EmailService segunda = despachante.novaRodada();
+        segunda.notificarAtraso(usuario);
+        primeira.notificarAtraso(usuario);
+        segunda.notificarAtraso(usuario);
+        despachante.close();
+
+        // verificacao
+        assertEquals(2, despachante.getDuplicadas());
+        assertEquals(2, despachante.getEnviadas());
+    }
+
+    @Test
+    void deveAplicarPoliticaQuandoFilaEstiverCheia() throws Exception {
+        // cenario
+        CountDownLatch envioIniciado = new CountDownLatch(1);
+        CountDownLatch liberarEnvio = new CountDownLatch(1);
+        doAnswer(invocacao -> {
+            envioIniciado.countDown();
+            liberarEnvio.await();
+            return null;
+        }).when(emailService).notificarAtrasos(anyCollection());
+        DespachanteEmail despachante = new DespachanteEmail(emailService, 1, 1, PoliticaFilaCheia.DESCARTAR);
+
+        // acao
+        despachante.notificarAtraso(umUsuario().comNome("Em envio").agora());
+        envioIniciado.await();
+        despachante.notificarAtraso(umUsuario().comNome("Na fila").agora());
+        despachante.notificarAtraso(umUsuario().comNome("Descartado").agora());
+        liberarEnvio.countDown();
+        despachante.close();
+
+        // verificacao
+        assertEquals(1, despachante.getDescartadas());
+        assertEquals(2, despachante.getEnviadas());
+        verify(emailService, times(2)).notificarAtrasos(lotes.capture());
+    }
+
+    @Test
+    void deveLiberarUsuarioDescartadoParaNotificarNaMesmaRodada() throws Exception {
+        // cenario
+        CountDownLatch envioIniciado = new CountDownLatch(1);
+        CountDownLatch liberarEnvio = new CountDownLatch(1);
+        List<Usuario> recebidos = new ArrayList<>();
+        doAnswer(invocacao -> {
+            envioIniciado.countDown();
+            liberarEnvio.await();
+            recebidos.addAll(invocacao.getArgument(0));
+            return null;
+        }).when(emailService).notificarAtrasos(anyCollection());
+        DespachanteEmail despachante =
+                new DespachanteEmail(emailService, 1, 1, PoliticaFilaCheia.DESCARTAR_MAIS_ANTIGA);
+        EmailService rodada = despachante.novaRodada();
+        Usuario descartado = umUsuario().comNome("Descartado").agora();
+
+        // acao
+        rodada.notificarAtraso(umUsuario().comNome("Em envio").agora());
+        envioIniciado.await();
+        rodada.notificarAtraso(descartado);
+        rodada.notificarAtraso(umUsuario().comNome("Mais novo").agora());
+        rodada.notificarAtraso(descartado);
+        liberarEnvio.countDown();
+        despachante.close();
+
+        // verificacao
+        assertEquals(0, despachante.getDuplicadas());
+        assertTrue(recebidos.contains(descartado));
+    }
+}
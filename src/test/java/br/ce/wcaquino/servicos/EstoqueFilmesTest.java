@@ -0,0 +1,146 @@
+package br.ce.wcaquino.servicos;
+
+import br.ce.wcaquino.entidades.Filme;
+import br.ce.wcaquino.exceptions.FilmeSemEstoqueException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static br.ce.wcaquino.builders.FilmeBuilder.umFilme;
+import static org.junit.jupiter.api.Assertions.*;
+
+class EstoqueFilmesTest {
+
+    private EstoqueFilmes estoque;
+
+    @BeforeEach
+    void setup() {
+        estoque = new EstoqueFilmes();
+    }
+
+    @Test
+    void deveReservarTodosOsFilmesDoCarrinho() throws Exception {
+        // cenario
+        Filme filme1 = umFilme().agora();
+        Filme filme2 = umFilme().comNome("Filme 2").agora();
+        estoque.registrar(filme1, 3);
+        estoque.registrar(filme2, 2);
+
+        // acao
+        ReservaEstoque reserva = estoque.reservar(List.of(filme1, filme1, filme2));
+
+        // verificacao
+        reserva.validar();
+        assertEquals(1, estoque.disponivel(filme1));
+        assertEquals(1, estoque.disponivel(filme2));
+    }
+
+    @Test
+    void naoDeveReservarNadaQuandoUmFilmeNaoTemEstoque() {
+        // cenario
+        Filme filme1 = umFilme().agora();
+        Filme filme2 = umFilme().comNome("Filme 2").agora();
+        estoque.registrar(filme1, 1);
+        estoque.registrar(filme2, 0);
+
+        // acao
+        ReservaEstoque reserva = estoque.reservar(List.of(filme1, filme2));
+
+        // verificacao
+        assertFalse(reserva.isConfirmada());
+        assertSame(filme2, reserva.getFilmeSemEstoque());
+        FilmeSemEstoqueException erro = assertThrows(FilmeSemEstoqueException.class, reserva::validar);
+        assertSame(MotivoRejeicao.FILME_SEM_ESTOQUE.getExcecao(), erro);
+        assertEquals(1, estoque.disponivel(filme1));
+    }
+
+    @Test
+    void deveDevolverCopiasAoLiberarReserva() {
+        // cenario
+        Filme filme = umFilme().agora();
+        estoque.registrar(filme, 2);
+        ReservaEstoque reserva = estoque.reservar(List.of(filme, filme));
+
+        // acao
+        estoque.liberar(reserva);
+
+        // verificacao
+        assertEquals(2, estoque.disponivel(filme));
+    }
+
+    @Test
+    void deveCompartilharContadorEntreCopiasDoMesmoFilme() {
+        // cenario
+        Filme filme = umFilme().agora();
+        Filme outraCopia = umFilme().agora();
+        estoque.registrar(filme, 1);
+
+        // acao
+        ReservaEstoque primeira = estoque.reservar(List.of(filme));
+        ReservaEstoque segunda = estoque.reservar(List.of(outraCopia));
+
+        // verificacao
+        assertTrue(primeira.isConfirmada());
+        assertFalse(segunda.isConfirmada());
+        assertEquals(0, estoque.disponivel(outraCopia));
+    }
+
+    @Test
+    void deveRecusarFilmeNaoRegistradoSemCriarContador() {
+        // cenario
+        Filme registrado = umFilme().agora();
+        Filme naoRegistrado = umFilme().comNome("Filme 2").agora();
+        estoque.registrar(registrado, 1);
+
+        // acao
+        ReservaEstoque reserva = estoque.reservar(List.of(registrado, naoRegistrado));
+
+        // verificacao
+        assertSame(naoRegistrado, reserva.getFilmeSemEstoque());
+        assertEquals(1, estoque.disponivel(registrado));
+        assertEquals(0, estoque.disponivel(naoRegistrado));
+        estoque.registrar(naoRegistrado, 1);
+        assertTrue(estoque.reservar(List.of(registrado, naoRegistrado)).isConfirmada());
+    }
+
+    @Test
+    void naoDeveReservarMaisCopiasQueOEstoqueSobConcorrencia() throws Exception {
+        // cenario
+        Filme filme = umFilme().agora();
+        estoque.registrar(filme, 1000);
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+
+        try {
+            // acao
+            List<Future<Integer>> tarefas = new ArrayList<>();
+            for (int t = 0; t < 8; t++) {
+                tarefas.add(executor.submit(() -> {
+                    int confirmadas = 0;
+                    for (int i = 0; i < 500; i++) {
+                        if (estoque.reservar(List.of(filme)).isConfirmada()) {
+                            confirmadas++;
+                        }
+                    }
+                    return confirmadas;
+                }));
+            }
+
+            int total = 0;
+            for (Future<Integer> tarefa : tarefas) {
+                total += tarefa.get(10, TimeUnit.SECONDS);
+            }
+
+            // verificacao
+            assertEquals(1000, total);
+            assertEquals(0, estoque.disponivel(filme));
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,102 @@
+package br.ce.wcaquino.servicos;
+
+import br.ce.wcaquino.daos.LocacaoDAO;
+import br.ce.wcaquino.daos.LocacaoDAOAsync;
+import br.ce.wcaquino.entidades.Filme;
+import br.ce.wcaquino.entidades.Locacao;
+import br.ce.wcaquino.entidades.Usuario;
+import br.ce.wcaquino.exceptions.FilmeSemEstoqueException;
+import br.ce.wcaquino.exceptions.LocadoraException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+
+import static br.ce.wcaquino.builders.FilmeBuilder.umFilme;
+import static br.ce.wcaquino.builders.FilmeBuilder.umFilmeSemEstoque;
+import static br.ce.wcaquino.builders.UsuarioBuilder.umUsuario;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+import static org.mockito.MockitoAnnotations.openMocks;
+
+class LocacaoServiceAsyncTest {
+
+    @Mock
+    private SPCService spcService;
+    @Mock
+    private EmailService emailService;
+    @Mock
+    private LocacaoDAO locacaoDAO;
+
+    private LocacaoServiceAsync locacaoService;
+
+    @BeforeEach
+    void setup() {
+        openMocks(this);
+        Executor mesmaThread = Runnable::run;
+        locacaoService = new LocacaoServiceAsync(new LocacaoService(locacaoDAO, spcService, emailService),
+                SPCServiceAsync.adaptar(spcService, mesmaThread), LocacaoDAOAsync.adaptar(locacaoDAO, mesmaThread));
+    }
+
+    @Test
+    void deveAlugarFilmeDeFormaAssincrona() throws Exception {
+        // cenario
+        Usuario usuario = umUsuario().agora();
+        List<Filme> filmes = List.of(umFilme().comValor(5.0).agora());
+
+        // acao
+        Locacao locacao = locacaoService.alugarFilme(usuario, filmes).get(5, TimeUnit.SECONDS);
+
+        // verificacao
+        assertEquals(5.0, locacao.getValor());
+        verify(locacaoDAO).salvar(locacao);
+    }
+
+    @Test
+    void deveCompletarComErroDoSPC() throws Exception {
+        // cenario
+        Usuario usuario = umUsuario().agora();
+        when(spcService.pussuiNegativacao(usuario)).thenThrow(new Exception("Falha catastrofica"));
+
+        // acao
+        CompletableFuture<Locacao> futuro = locacaoService.alugarFilme(usuario, List.of(umFilme().agora()));
+
+        // verificacao
+        ExecutionException erro = assertThrows(ExecutionException.class, futuro::get);
+        assertInstanceOf(LocadoraException.class, erro.getCause());
+        assertEquals("Problemas com o SPC, tente novamente", erro.getCause().getMessage());
+        verify(locacaoDAO, never()).salvar(any(Locacao.class));
+    }
+
+    @Test
+    void naoDeveAlugarFilmeParaNegativadoSPC() throws Exception {
+        // cenario
+        Usuario usuario = umUsuario().agora();
+        when(spcService.pussuiNegativacao(usuario)).thenReturn(true);
+
+        // acao
+        CompletableFuture<Locacao> futuro = locacaoService.alugarFilme(usuario, List.of(umFilme().agora()));
+
+        // verificacao
+        ExecutionException erro = assertThrows(ExecutionException.class, futuro::get);
+        assertEquals("Usuario negativado", erro.getCause().getMessage());
+    }
+
+    @Test
+    void deveValidarAntesDeConsultarSPC() {
+        // acao
+        CompletableFuture<Locacao> futuro = locacaoService.alugarFilme(umUsuario().agora(),
+                List.of(umFilmeSemEstoque().agora()));
+
+        // verificacao
+        ExecutionException erro = assertThrows(ExecutionException.class, futuro::get);
+        assertInstanceOf(FilmeSemEstoqueException.class, erro.getCause());
+        verifyNoInteractions(spcService);
+    }
+}
@@ -0,0 +1,215 @@
+package br.ce.wcaquino.servicos;
+
+import br.ce.wcaquino.daos.LocacaoDAO;
+import br.ce.wcaquino.entidades.Locacao;
+import br.ce.wcaquino.entidades.Usuario;
+import br.ce.wcaquino.exceptions.LocadoraException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import static br.ce.wcaquino.builders.FilmeBuilder.umFilme;
+import static br.ce.wcaquino.builders.LocacaoBuilder.umLocacao;
+import static br.ce.wcaquino.builders.UsuarioBuilder.umUsuario;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+import static org.mockito.MockitoAnnotations.openMocks;
+
+class LocacaoServiceParticionadoTest {
+
+    @Mock
+    private SPCService spcService;
+    @Mock
+    private EmailService emailService;
+    @Mock
+    private LocacaoDAO locacaoDAO;
+
+    private LocacaoServiceParticionado locacaoService;
+
+    @BeforeEach
+    void setup() {
+        openMocks(this);
+        locacaoService = new LocacaoServiceParticionado(new LocacaoService(locacaoDAO, spcService, emailService), 4, 8);
+    }
+
+    @AfterEach
+    void encerrar() {
+        locacaoService.close();
+    }
+
+    @Test
+    void deveExecutarOperacoesDoMesmoUsuarioEmOrdemNaMesmaThread() throws Exception {
+        // cenario
+        Map<String, Set<String>> threadsPorUsuario = new ConcurrentHashMap<>();
+        Map<String, List<Double>> valoresPorUsuario = new ConcurrentHashMap<>();
+        doAnswer(invocacao -> {
+            Locacao locacao = invocacao.getArgument(0);
+            String nome = locacao.getUsuario().getNome();
+            threadsPorUsuario.computeIfAbsent(nome, n -> ConcurrentHashMap.newKeySet())
+                    .add(Thread.currentThread().getName());
+            valoresPorUsuario.computeIfAbsent(nome, n -> Collections.synchronizedList(new ArrayList<>()))
+                    .add(locacao.getValor());
+            return null;
+        }).when(locacaoDAO).salvar(any(Locacao.class));
+
+        List<Usuario> usuarios = new ArrayList<>();
+        for (int i = 0; i < 16; i++) {
+            usuarios.add(umUsuario().comNome("Usuario " + i).agora());
+        }
+
+        // acao
+        List<CompletableFuture<?>> futuros = new ArrayList<>();
+        for (int dias = 1; dias <= 50; dias++) {
+            for (Usuario usuario : usuarios) {
+                Locacao locacao = umLocacao().comUsuario(usuario).comValor(1.0).agora();
+                futuros.add(locacaoService.prorrogarLocacao(locacao, dias));
+            }
+        }
+        CompletableFuture.allOf(futuros.toArray(new CompletableFuture<?>[0])).get(10, TimeUnit.SECONDS);
+
+        // verificacao
+        Set<String> threads = new HashSet<>();
+        for (Usuario usuario : usuarios) {
+            Set<String> doUsuario = threadsPorUsuario.get(usuario.getNome());
+            assertEquals(1, doUsuario.size());
+            threads.addAll(doUsuario);
+
+            List<Double> valores = valoresPorUsuario.get(usuario.getNome());
+            assertEquals(50, valores.size());
+            for (int i = 0; i < valores.size(); i++) {
+                assertEquals(i + 1.0, valores.get(i));
+            }
+        }
+        assertTrue(threads.size() > 1);
+    }
+
+    @Test
+    void deveAlugarFilmeNaParticaoDoUsuario() throws Exception {
+        // cenario
+        Usuario usuario = umUsuario().agora();
+
+        // acao
+        Locacao locacao = locacaoService.alugarFilme(usuario, List.of(umFilme().comValor(5.0).agora()))
+                .get(5, TimeUnit.SECONDS);
+
+        // verificacao
+        assertEquals(5.0, locacao.getValor());
+        verify(locacaoDAO).salvar(locacao);
+    }
+
+    @Test
+    void deveCompletarComExcecaoDoMotivoDeRejeicao() throws Exception {
+        // cenario
+        Usuario usuario = umUsuario().agora();
+        when(spcService.pussuiNegativacao(usuario)).thenReturn(true);
+
+        // acao
+        CompletableFuture<Locacao> futuro = locacaoService.alugarFilme(usuario, List.of(umFilme().agora()));
+
+        // verificacao
+        ExecutionException erro = assertThrows(ExecutionException.class, () -> futuro.get(5, TimeUnit.SECONDS));
+        assertInstanceOf(LocadoraException.class, erro.getCause());
+        assertSame(MotivoRejeicao.USUARIO_NEGATIVADO.getExcecao(), erro.getCause());
+        assertFalse(locacaoService.tentarAlugarFilme(usuario, List.of(umFilme().agora()))
+                .get(5, TimeUnit.SECONDS).isSucesso());
+    }
+
+    @Test
+    void deveNotificarAtrasosPelaParticaoDeCadaUsuario() throws Exception {
+        // cenario
+        Usuario usuario = umUsuario().agora();
+        Usuario outro = umUsuario().comNome("Outro").agora();
+        when(locacaoDAO.obterLocacoesAtrasadas(any())).thenReturn(Stream.of(
+                umLocacao().comUsuario(usuario).atrasado().agora(),
+                umLocacao().comUsuario(outro).atrasado().agora()));
+
+        // acao
+        locacaoService.notificarAtrasos().get(5, TimeUnit.SECONDS);
+
+        // verificacao
+        verify(emailService).notificarAtraso(usuario);
+        verify(emailService).notificarAtraso(outro);
+    }
+
+    @Test
+    void deveRecusarEnviosAposEncerrar() throws Exception {
+        // cenario
+        locacaoService.close();
+
+        // acao
+        CompletableFuture<Locacao> futuro = locacaoService.alugarFilme(umUsuario().agora(), List.of(umFilme().agora()));
+
+        // verificacao
+        ExecutionException erro = assertThrows(ExecutionException.class, futuro::get);
+        assertInstanceOf(RejectedExecutionException.class, erro.getCause());
+    }
+
+    @Test
+    void deveContinuarProcessandoAposErroNaTarefa() throws Exception {
+        // cenario
+        LocacaoServiceParticionado umaParticao =
+                new LocacaoServiceParticionado(new LocacaoService(locacaoDAO, spcService, emailService), 1, 2);
+        doThrow(new AssertionError("falha grave")).doNothing().when(locacaoDAO).salvar(any(Locacao.class));
+
+        try {
+            // acao
+            CompletableFuture<Void> comErro = umaParticao.prorrogarLocacao(umLocacao().agora(), 1);
+            CompletableFuture<Void> seguinte = umaParticao.prorrogarLocacao(umLocacao().agora(), 1);
+
+            // verificacao
+            ExecutionException erro = assertThrows(ExecutionException.class, () -> comErro.get(5, TimeUnit.SECONDS));
+            assertInstanceOf(AssertionError.class, erro.getCause());
+            assertNull(seguinte.get(5, TimeUnit.SECONDS));
+        } finally {
+            umaParticao.close();
+        }
+    }
+
+    @Test
+    void deveCompletarTodosOsEnviosConcorrentesComOFechamento() throws Exception {
+        // cenario
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        List<Future<List<CompletableFuture<Void>>>> tarefas = new ArrayList<>();
+        for (int t = 0; t < 4; t++) {
+            tarefas.add(executor.submit(() -> {
+                List<CompletableFuture<Void>> futuros = new ArrayList<>();
+                CompletableFuture<Void> futuro;
+                do {
+                    futuro = locacaoService.prorrogarLocacao(umLocacao().agora(), 1);
+                    futuros.add(futuro);
+                } while (!futuro.isCompletedExceptionally());
+                return futuros;
+            }));
+        }
+
+        // acao
+        Thread.sleep(20);
+        locacaoService.close();
+
+        // verificacao
+        for (Future<List<CompletableFuture<Void>>> tarefa : tarefas) {
+            for (CompletableFuture<Void> futuro : tarefa.get(10, TimeUnit.SECONDS)) {
+                assertTrue(futuro.isDone());
+            }
+        }
+        executor.shutdown();
+    }
+}
@@ -1,21 +1,34 @@
 package br.ce.wcaquino.servicos;
 
 import br.ce.wcaquino.builders.UsuarioBuilder;
+import br.ce.wcaquino.daos.CatalogoFilmes;
 import br.ce.wcaquino.daos.LocacaoDAO;
 import br.ce.wcaquino.entidades.Filme;
 import br.ce.wcaquino.entidades.Locacao;
+import br.ce.wcaquino.entidades.PedidoLocacao;
+import br.ce.wcaquino.entidades.Prorrogacao;
 import br.ce.wcaquino.entidades.Usuario;
 import br.ce.wcaquino.exceptions.FilmeSemEstoqueException;
 import br.ce.wcaquino.exceptions.LocadoraException;
+import br.ce.wcaquino.metricas.InstantaneoMetricas;
+import br.ce.wcaquino.metricas.Metricas;
+import br.ce.wcaquino.metricas.MetricasLocacao;
 import br.ce.wcaquino.utils.DataUtils;
 import org.junit.jupiter.api.Assumptions;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.ArgumentCaptor;
+import org.mockito.Captor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
 import java.util.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 import static br.ce.wcaquino.builders.FilmeBuilder.umFilme;
 import static br.ce.wcaquino.builders.FilmeBuilder.umFilmeSemEstoque;
@@ -27,6 +40,8 @@ import static org.hamcrest.MatcherAssert.assertThat;
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentCaptor.forClass;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyList;
 import static org.mockito.Mockito.*;
 import static org.mockito.MockitoAnnotations.openMocks;
 
@@ -39,6 +54,12 @@ class LocacaoServiceTest {
     private EmailService emailService;
     @Mock
     private LocacaoDAO locacaoDAO;
+    @Captor
+    private ArgumentCaptor<List<Prorrogacao>> prorrogacoesCaptor;
+    @Captor
+    private ArgumentCaptor<Collection<Usuario>> usuariosCaptor;
+    @Captor
+    private ArgumentCaptor<List<Locacao>> locacoesCaptor;
 
     @BeforeEach
     void setup() {
@@ -75,6 +96,152 @@ class LocacaoServiceTest {
         );
     }
 
+    @Test
+    void naoDeveAlugarUltimaCopiaDuasVezes() throws Exception {
+        // cenario
+        EstoqueFilmes estoque = new EstoqueFilmes();
+        Filme filme = umFilme().agora();
+        estoque.registrar(filme, 1);
+        locacaoService.setEstoque(estoque);
+
+        // acao
+        locacaoService.alugarFilme(umUsuario().agora(), List.of(filme));
+
+        // verificacao
+        assertThrows(FilmeSemEstoqueException.class, () ->
+            locacaoService.alugarFilme(umUsuario().comNome("Usuario 2").agora(), List.of(filme))
+        );
+        verify(locacaoDAO, times(1)).salvar(any(Locacao.class));
+    }
+
+    @Test
+    void deveLiberarEstoqueQuandoFalharAoSalvar() {
+        // cenario
+        EstoqueFilmes estoque = new EstoqueFilmes();
+        Filme filme = umFilme().agora();
+        estoque.registrar(filme, 2);
+        locacaoService.setEstoque(estoque);
+        doThrow(new IllegalStateException("Banco indisponivel")).when(locacaoDAO).salvar(any(Locacao.class));
+
+        // acao
+        assertThrows(IllegalStateException.class, () ->
+            locacaoService.alugarFilme(umUsuario().agora(), List.of(filme))
+        );
+
+        // verificacao
+        assertEquals(2, estoque.disponivel(filme));
+    }
+
+    @Test
+    void deveAlugarFilmesDoCatalogoPeloId() throws Exception {
+        // cenario
+        CatalogoFilmes catalogo = new CatalogoFilmes(2);
+        int filme = catalogo.adicionar("Filme 1", 1, 400);
+        int outro = catalogo.adicionar("Filme 2", 5, 400);
+        locacaoService.setCatalogo(catalogo);
+
+        // acao
+        Locacao locacao = locacaoService.alugarFilmesDoCatalogo(umUsuario().agora(), filme, outro, outro, outro);
+
+        // verificacao
+        assertArrayEquals(new int[]{filme, outro, outro, outro}, locacao.getIdsFilmes());
+        assertNull(locacao.getFilmes());
+        assertEquals(13.0, locacao.getValor());
+        assertEquals(0, catalogo.estoque(filme));
+        assertEquals(2, catalogo.estoque(outro));
+        verify(locacaoDAO).salvar(locacao);
+
+        assertThrows(FilmeSemEstoqueException.class,
+                () -> locacaoService.alugarFilmesDoCatalogo(umUsuario().agora(), outro, filme));
+        assertEquals(2, catalogo.estoque(outro));
+    }
+
+    @Test
+    void deveRegistrarMetricasPorFaseEResultado() throws Exception {
+        // cenario
+        Metricas registro = new Metricas();
+        locacaoService.setMetricas(new MetricasLocacao(registro));
+        Usuario negativado = umUsuario().comNome("Negativado").agora();
+        when(spcService.pussuiNegativacao(negativado)).thenReturn(true);
+
+        // acao
+        locacaoService.alugarFilme(umUsuario().agora(), List.of(umFilme().agora()));
+        assertThrows(LocadoraException.class, () -> locacaoService.alugarFilme(negativado, List.of(umFilme().agora())));
+        locacaoService.prorrogarLocacao(umLocacao().agora(), 2);
+
+        // verificacao
+        InstantaneoMetricas metricas = registro.instantaneo();
+        assertEquals(1, metricas.contador("locacao_alugar_sucesso_total"));
+        assertEquals(1, metricas.contador("locacao_alugar_rejeicao_total"));
+        assertEquals(0, metricas.contador("locacao_alugar_erro_total"));
+        assertEquals(2, metricas.histograma("locacao_alugar_validacao_nanos").getTotal());
+        assertEquals(1, metricas.histograma("locacao_alugar_spc_nanos").getTotal());
+        assertEquals(1, metricas.histograma("locacao_alugar_persistencia_nanos").getTotal());
+        assertEquals(2, metricas.histograma("locacao_alugar_total_nanos").getTotal());
+        assertEquals(1, metricas.contador("locacao_prorrogar_sucesso_total"));
+        assertTrue(metricas.exportarTexto().contains("locacao_alugar_precificacao_nanos_count 1\n"));
+    }
+
+    @Test
+    void deveMedirFasesApenasNasOperacoesQueAsControlam() throws Exception {
+        // cenario
+        Metricas registro = new Metricas();
+        locacaoService.setMetricas(new MetricasLocacao(registro));
+        when(spcService.obterNegativados(anyCollection())).thenReturn(Set.of());
+        when(locacaoDAO.obterLocacoesAtrasadas(any(Instant.class))).thenReturn(Stream.of(
+                umLocacao().atrasado().agora(), umLocacao().comUsuario(umUsuario().comNome("Outro").agora()).atrasado().agora()));
+
+        // acao
+        locacaoService.alugarFilmes(List.of(new PedidoLocacao(umUsuario().agora(), List.of(umFilme().agora()))));
+        locacaoService.notificarAtrasos();
+
+        // verificacao
+        InstantaneoMetricas metricas = registro.instantaneo();
+        assertFalse(metricas.exportarTexto().contains("locacao_alugar_precificacao_nanos_count"));
+        assertFalse(metricas.exportarTexto().contains("locacao_alugar_datas_nanos_count"));
+        assertEquals(1, metricas.histograma("locacao_notificar_atrasos_consulta_nanos").getTotal());
+        assertEquals(2, metricas.histograma("locacao_notificar_atrasos_notificacao_nanos").getTotal());
+    }
+
+    @Test
+    void deveInformarMotivoDaRejeicaoSemLancarExcecao() throws Exception {
+        // cenario
+        Usuario negativado = umUsuario().comNome("Negativado").agora();
+        when(spcService.pussuiNegativacao(negativado)).thenReturn(true);
+        List<Filme> filmes = List.of(umFilme().agora());
+
+        // acao
+        ResultadoAluguel semUsuario = locacaoService.tentarAlugarFilme(null, filmes);
+        ResultadoAluguel semFilme = locacaoService.tentarAlugarFilme(umUsuario().agora(), List.of());
+        ResultadoAluguel semEstoque = locacaoService.tentarAlugarFilme(umUsuario().agora(), List.of(umFilmeSemEstoque().agora()));
+        ResultadoAluguel rejeitado = locacaoService.tentarAlugarFilme(negativado, filmes);
+        ResultadoAluguel alugado = locacaoService.tentarAlugarFilme(umUsuario().agora(), filmes);
+
+        // verificacao
+        assertEquals(MotivoRejeicao.USUARIO_VAZIO, ((ResultadoAluguel.Rejeicao) semUsuario).getMotivo());
+        assertEquals(MotivoRejeicao.FILME_VAZIO, ((ResultadoAluguel.Rejeicao) semFilme).getMotivo());
+        assertEquals(MotivoRejeicao.FILME_SEM_ESTOQUE, ((ResultadoAluguel.Rejeicao) semEstoque).getMotivo());
+        assertEquals("Usuario negativado", rejeitado.mapear(locacao -> null, MotivoRejeicao::getMensagem));
+        assertSame(rejeitado, locacaoService.tentarAlugarFilme(negativado, filmes));
+        assertTrue(alugado.isSucesso());
+        assertEquals(4.0, ((ResultadoAluguel.Sucesso) alugado).getLocacao().getValor());
+        verify(locacaoDAO, times(1)).salvar(any());
+    }
+
+    @Test
+    void deveLancarExcecoesPreAlocadasSemPilha() {
+        // acao
+        LocadoraException primeira = assertThrows(LocadoraException.class,
+                () -> locacaoService.alugarFilme(null, List.of(umFilme().agora())));
+        LocadoraException segunda = assertThrows(LocadoraException.class,
+                () -> locacaoService.alugarFilme(null, List.of(umFilme().agora())));
+
+        // verificacao
+        assertSame(primeira, segunda);
+        assertEquals("Usuario vazio", primeira.getMessage());
+        assertEquals(0, primeira.getStackTrace().length);
+    }
+
     @Test
     void naoDeveAlugarFilmeSemUsuario() throws Exception {
         // cenario
@@ -117,6 +284,21 @@ class LocacaoServiceTest {
         assertThat(retorno.getDataRetorno(), caiNumaSegunda());
     }
 
+    @Test
+    void deveDevolverNoProximoDiaUtilQuandoAmanhaForFeriado() throws Exception {
+        // cenario
+        LocalDate amanha = LocalDate.now().plusDays(1);
+        locacaoService.setCalendarioEntrega(
+                CalendarioEntrega.criar("SP", DataUtils.hoje(ZoneId.systemDefault()), 30, List.of(amanha)));
+        int diasAteEntrega = DataUtils.verificarDiaSemana(amanha.plusDays(1), Calendar.SUNDAY) ? 3 : 2;
+
+        // acao
+        Locacao retorno = locacaoService.alugarFilme(umUsuario().agora(), List.of(umFilme().agora()));
+
+        // verificacao
+        assertThat(retorno.getDataRetorno(), ehHojeComDiferencaDias(diasAteEntrega));
+    }
+
     @Test
     void naoDeveAlugarFilmeParaNegativadoSPC() throws Exception {
         // Cenario
@@ -150,6 +332,8 @@ class LocacaoServiceTest {
                 umLocacao().comUsuario(usuario3).atrasado().agora());
 
         when(locacaoDAO.obterLocacoesPendentes()).thenReturn(listaDeLocacoesPendentes);
+        when(locacaoDAO.streamLocacoesPendentes()).thenCallRealMethod();
+        when(locacaoDAO.obterLocacoesAtrasadas(any(Instant.class))).thenCallRealMethod();
 
         // acao
         locacaoService.notificarAtrasos();
@@ -166,6 +350,70 @@ class LocacaoServiceTest {
         verifyNoMoreInteractions(emailService); // garantir que nenhum outro email foi enviado
     }
 
+    @Test
+    void deveAbrirUmaRodadaDeEmailPorNotificacaoDeAtrasos() {
+        // cenario
+        Usuario usuario = umUsuario().agora();
+        when(locacaoDAO.obterLocacoesPendentes()).thenReturn(List.of(umLocacao().comUsuario(usuario).atrasado().agora()));
+        when(locacaoDAO.streamLocacoesPendentes()).thenCallRealMethod();
+        when(locacaoDAO.obterLocacoesAtrasadas(any(Instant.class))).thenCallRealMethod();
+        EmailService primeira = mock(EmailService.class);
+        EmailService segunda = mock(EmailService.class);
+        Iterator<EmailService> rodadas = List.of(primeira, segunda).iterator();
+        locacaoService.setRodadasEmail(rodadas::next);
+
+        // acao
+        locacaoService.notificarAtrasos();
+        locacaoService.notificarAtrasos();
+
+        // verificacao
+        verify(primeira).notificarAtraso(usuario);
+        verify(segunda).notificarAtraso(usuario);
+        verifyNoInteractions(emailService);
+    }
+
+    @Test
+    void deveFecharStreamDeLocacoesPendentesAposNotificar() {
+        // cenario
+        AtomicBoolean fechado = new AtomicBoolean();
+        Stream<Locacao> pendentes = Stream.of(umLocacao().atrasado().agora()).onClose(() -> fechado.set(true));
+        when(locacaoDAO.streamLocacoesPendentes()).thenReturn(pendentes);
+        when(locacaoDAO.obterLocacoesAtrasadas(any(Instant.class))).thenCallRealMethod();
+
+        // acao
+        locacaoService.notificarAtrasos();
+
+        // verificacao
+        verify(emailService).notificarAtraso(any(Usuario.class));
+        verify(locacaoDAO, never()).obterLocacoesPendentes();
+        assertTrue(fechado.get());
+    }
+
+    @Test
+    void deveNotificarAtrasosEmParaleloRespeitandoLimiteDeTaxa() throws Exception {
+        // cenario
+        Usuario usuario1 = umUsuario().agora();
+        Usuario usuarioComFalha = umUsuario().comNome("Email invalido").agora();
+        List<Locacao> atrasadas = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            atrasadas.add(umLocacao().comUsuario(usuario1).atrasado().agora());
+        }
+        atrasadas.add(umLocacao().comUsuario(usuarioComFalha).atrasado().agora());
+        when(locacaoDAO.obterLocacoesAtrasadas(any(Instant.class))).thenReturn(atrasadas.stream());
+        doThrow(new IllegalStateException("Caixa inexistente")).when(emailService).notificarAtraso(usuarioComFalha);
+
+        // acao
+        ResumoNotificacao resumo = locacaoService.notificarAtrasosEmParalelo(4, 50);
+
+        // verificacao
+        assertEquals(5, resumo.getAtrasadas());
+        assertEquals(4, resumo.getNotificadas());
+        assertEquals(1, resumo.getFalhas());
+        assertTrue(resumo.getDuracao().toMillis() >= 80, "5 envios a 50/s levam ao menos 80ms");
+        verify(emailService, times(4)).notificarAtraso(usuario1);
+        verify(locacaoDAO, never()).streamLocacoesPendentes();
+    }
+
     @Test
     void deveTratarErroNoSPC() throws Exception {
         // cenario
@@ -198,4 +446,83 @@ class LocacaoServiceTest {
 
     }
 
+    @Test
+    void deveProrrogarLocacoesEmLoteComoAlteracaoVersionada() {
+        // cenario
+        Locacao locacao = umLocacao().comValor(4.0).agora();
+        Date retornoOriginal = locacao.getDataRetorno();
+        Locacao devolvida = umLocacao().agora();
+        List<Locacao> locacoes = List.of(locacao, devolvida);
+        when(locacaoDAO.registrarProrrogacoes(anyList())).thenAnswer(invocacao -> {
+            List<Prorrogacao> recebidas = invocacao.getArgument(0);
+            return recebidas.stream().filter(p -> p.getLocacao() != devolvida).collect(Collectors.toList());
+        });
+
+        // acao
+        List<Prorrogacao> prorrogacoes = locacaoService.prorrogarLocacoes(locacoes, 3);
+
+        // verificacao
+        verify(locacaoDAO).registrarProrrogacoes(prorrogacoesCaptor.capture());
+        verify(locacaoDAO, never()).salvar(any());
+        assertEquals(2, prorrogacoesCaptor.getValue().size());
+        Prorrogacao prorrogacao = prorrogacoes.get(0);
+        assertSame(locacao, prorrogacao.getLocacao());
+        assertEquals(1, prorrogacao.getVersao());
+        assertEquals(12.0, prorrogacao.getValor());
+        assertEquals(DataUtils.adicionarDias(retornoOriginal, 3), prorrogacao.getDataRetorno());
+        assertEquals(1, prorrogacoes.size());
+    }
+
+    @Test
+    void deveAlugarFilmesEmLoteInformandoResultadoPorPedido() throws Exception {
+        // cenario
+        Usuario usuario1 = umUsuario().agora();
+        Usuario negativado = umUsuario().comNome("Usuario negativado").agora();
+        List<PedidoLocacao> pedidos = List.of(
+                new PedidoLocacao(usuario1, List.of(umFilme().agora())),
+                new PedidoLocacao(negativado, List.of(umFilme().agora())),
+                new PedidoLocacao(usuario1, List.of(umFilmeSemEstoque().agora())),
+                new PedidoLocacao(usuario1, List.of(umFilme().comValor(5.0).agora())));
+
+        when(spcService.obterNegativados(anyCollection())).thenReturn(Set.of(negativado));
+
+        // acao
+        List<ResultadoLocacao> resultados = locacaoService.alugarFilmes(pedidos);
+
+        // verificacao
+        assertEquals(4, resultados.size());
+        assertTrue(resultados.get(0).isSucesso());
+        assertEquals("Usuario negativado", resultados.get(1).getErro().getMessage());
+        assertInstanceOf(FilmeSemEstoqueException.class, resultados.get(2).getErro());
+        assertEquals(5.0, resultados.get(3).getLocacao().getValor());
+
+        // usuarios repetidos sao consultados uma unica vez
+        verify(spcService).obterNegativados(usuariosCaptor.capture());
+        assertEquals(List.of(usuario1, negativado), new ArrayList<>(usuariosCaptor.getValue()));
+        verify(spcService, never()).pussuiNegativacao(any(Usuario.class));
+
+        verify(locacaoDAO).salvarTodos(locacoesCaptor.capture());
+        assertEquals(2, locacoesCaptor.getValue().size());
+        verify(locacaoDAO, never()).salvar(any(Locacao.class));
+    }
+
+    @Test
+    void deveFalharApenasPedidosValidosQuandoSPCFalharNoLote() throws Exception {
+        // cenario
+        Usuario usuario = umUsuario().agora();
+        List<PedidoLocacao> pedidos = List.of(
+                new PedidoLocacao(usuario, List.of(umFilme().agora())),
+                new PedidoLocacao(null, List.of(umFilme().agora())));
+
+        when(spcService.obterNegativados(anyCollection())).thenThrow(new Exception("Falha catastrofica"));
+
+        // acao
+        List<ResultadoLocacao> resultados = locacaoService.alugarFilmes(pedidos);
+
+        // verificacao
+        assertEquals("Problemas com o SPC, tente novamente", resultados.get(0).getErro().getMessage());
+        assertEquals("Usuario vazio", resultados.get(1).getErro().getMessage());
+        verifyNoInteractions(locacaoDAO);
+    }
+
 }
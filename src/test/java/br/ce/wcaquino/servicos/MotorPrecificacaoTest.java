@@ -0,0 +1,50 @@
+package br.ce.wcaquino.servicos;
+
+import br.ce.wcaquino.entidades.Filme;
+import org.junit.jupiter.api.Test;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import static br.ce.wcaquino.builders.FilmeBuilder.umFilme;
+import static org.junit.jupiter.api.Assertions.*;
+
+class MotorPrecificacaoTest {
+
+    @Test
+    void deveAplicarDescontosPadraoPorPosicao() {
+        MotorPrecificacao motor = MotorPrecificacao.PADRAO;
+
+        assertEquals(1000, motor.aplicar(0, 1000));
+        assertEquals(1000, motor.aplicar(1, 1000));
+        assertEquals(750, motor.aplicar(2, 1000));
+        assertEquals(500, motor.aplicar(3, 1000));
+        assertEquals(250, motor.aplicar(4, 1000));
+        assertEquals(0, motor.aplicar(5, 1000));
+        assertEquals(1000, motor.aplicar(6, 1000));
+    }
+
+    @Test
+    void deveSomarCarrinhoEmCentavosSemErroDePontoFlutuante() {
+        List<Filme> filmes = Collections.nCopies(3, umFilme().comValor(0.1).agora());
+
+        // 0.10 + 0.10 + 0.075 -> 0.08 (meio centavo arredondado para cima)
+        assertEquals(28, MotorPrecificacao.PADRAO.calcularCentavos(filmes));
+    }
+
+    @Test
+    void deveUsarFaixasConfiguradas() {
+        MotorPrecificacao motor = MotorPrecificacao.comDescontos(Map.of(2, 10));
+        List<Filme> filmes = List.of(umFilme().comValor(5.0).agora(), umFilme().comValor(5.0).agora(),
+                umFilme().comValor(5.0).agora());
+
+        assertEquals(1450, motor.calcularCentavos(filmes));
+    }
+
+    @Test
+    void naoDeveAceitarPercentualInvalido() {
+        assertThrows(IllegalArgumentException.class, () -> MotorPrecificacao.comDescontos(Map.of(1, 120)));
+        assertThrows(IllegalArgumentException.class, () -> MotorPrecificacao.comDescontos(Map.of(0, 10)));
+    }
+}
@@ -0,0 +1,212 @@
+package br.ce.wcaquino.servicos;
+
+import br.ce.wcaquino.daos.LocacaoDAO;
+import br.ce.wcaquino.entidades.Filme;
+import br.ce.wcaquino.entidades.PedidoLocacao;
+import br.ce.wcaquino.entidades.Usuario;
+import br.ce.wcaquino.exceptions.FilmeSemEstoqueException;
+import br.ce.wcaquino.exceptions.LocadoraException;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Flow;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.SubmissionPublisher;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+import static br.ce.wcaquino.builders.FilmeBuilder.umFilme;
+import static br.ce.wcaquino.builders.FilmeBuilder.umFilmeSemEstoque;
+import static br.ce.wcaquino.builders.UsuarioBuilder.umUsuario;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class PipelineLocacaoTest {
+
+    private final SPCService spcService = mock(SPCService.class);
+    private final LocacaoDAO locacaoDAO = mock(LocacaoDAO.class);
+    private final LocacaoService servico = new LocacaoService(locacaoDAO, spcService, mock(EmailService.class));
+
+    @Test
+    void deveProcessarPedidosEmLotes() throws Exception {
+        // cenario
+        Usuario negativado = umUsuario().comNome("Negativado").agora();
+        when(spcService.obterNegativados(anyCollection())).thenReturn(Set.of(negativado));
+
+        List<PedidoLocacao> pedidos = new ArrayList<>();
+        for (int i = 0; i < 60; i++) {
+            pedidos.add(new PedidoLocacao(umUsuario().comNome("Usuario " + i).agora(), List.of(umFilme().agora())));
+        }
+        pedidos.add(new PedidoLocacao(negativado, List.of(umFilme().agora())));
+        pedidos.add(new PedidoLocacao(umUsuario().agora(), List.of(umFilmeSemEstoque().agora())));
+        pedidos.add(new PedidoLocacao(null, List.of(umFilme().agora())));
+
+        // acao
+        List<ResultadoLocacao> resultados = processar(new PipelineLocacao(servico, 16, 8, 2, 2), pedidos);
+
+        // verificacao
+        assertEquals(pedidos.size(), resultados.size());
+        assertEquals(60, resultados.stream().filter(ResultadoLocacao::isSucesso).count());
+        assertSame(MotivoRejeicao.USUARIO_NEGATIVADO.getExcecao(), erroDe(resultados, negativado));
+        assertInstanceOf(FilmeSemEstoqueException.class, erroDe(resultados, pedidos.get(61).getUsuario()));
+        assertInstanceOf(LocadoraException.class, erroDe(resultados, null));
+
+        verify(spcService, atMost(pedidos.size() / 2)).obterNegativados(anyCollection());
+        verify(spcService, never()).pussuiNegativacao(any());
+        verify(locacaoDAO, atMost(pedidos.size() / 2)).salvarTodos(anyList());
+    }
+
+    @Test
+    void deveMarcarLoteQuandoSpcFalhar() throws Exception {
+        // cenario
+        when(spcService.obterNegativados(anyCollection())).thenThrow(new Exception("Fora do ar"));
+        List<PedidoLocacao> pedidos = List.of(
+                new PedidoLocacao(umUsuario().agora(), List.of(umFilme().agora())),
+                new PedidoLocacao(umUsuario().comNome("Outro").agora(), List.of(umFilme().agora())));
+
+        // acao
+        List<ResultadoLocacao> resultados = processar(new PipelineLocacao(servico, 4), pedidos);
+
+        // verificacao
+        assertEquals(2, resultados.size());
+        for (ResultadoLocacao resultado : resultados) {
+            assertSame(MotivoRejeicao.SPC_INDISPONIVEL.getExcecao(), resultado.getErro());
+        }
+        verify(locacaoDAO, never()).salvarTodos(anyList());
+    }
+
+    @Test
+    void deveLiberarEstoqueQuandoPrecificacaoFalhar() throws Exception {
+        // cenario
+        when(spcService.obterNegativados(anyCollection())).thenReturn(Collections.emptySet());
+        EstoqueFilmes estoque = new EstoqueFilmes();
+        Filme quebrado = umFilme().comNome("Quebrado").agora();
+        Filme normal = umFilme().agora();
+        estoque.registrar(quebrado, 2);
+        estoque.registrar(normal, 2);
+        servico.setEstoque(estoque);
+        MotorPrecificacao motor = mock(MotorPrecificacao.class);
+        when(motor.calcularCentavos(anyList())).thenAnswer(invocacao -> {
+            if (invocacao.<List<Filme>>getArgument(0).contains(quebrado)) {
+                throw new IllegalStateException("Tabela de precos invalida");
+            }
+            return 400L;
+        });
+        servico.setMotorPrecificacao(motor);
+        List<PedidoLocacao> pedidos = List.of(
+                new PedidoLocacao(umUsuario().agora(), List.of(quebrado)),
+                new PedidoLocacao(umUsuario().comNome("Outro").agora(), List.of(normal)));
+
+        // acao
+        List<ResultadoLocacao> resultados = processar(new PipelineLocacao(servico, 4), pedidos);
+
+        // verificacao
+        assertEquals(2, resultados.size());
+        assertInstanceOf(IllegalStateException.class, erroDe(resultados, pedidos.get(0).getUsuario()));
+        assertNull(erroDe(resultados, pedidos.get(1).getUsuario()));
+        assertEquals(2, estoque.disponivel(quebrado));
+        assertEquals(1, estoque.disponivel(normal));
+    }
+
+    @Test
+    void deveSegurarProdutorQuandoGravacaoAtrasar() throws Exception {
+        // cenario
+        when(spcService.obterNegativados(anyCollection())).thenReturn(Collections.emptySet());
+        CountDownLatch liberar = new CountDownLatch(1);
+        AtomicInteger gravadas = new AtomicInteger();
+        doAnswer(invocacao -> {
+            liberar.await();
+            gravadas.addAndGet(invocacao.<List<?>>getArgument(0).size());
+            return null;
+        }).when(locacaoDAO).salvarTodos(anyList());
+
+        int capacidade = 4;
+        PipelineLocacao pipeline = new PipelineLocacao(servico, capacidade, 2, 1, 1);
+        SubmissionPublisher<PedidoLocacao> produtor = new SubmissionPublisher<>(ForkJoinPool.commonPool(), capacidade);
+        produtor.subscribe(pipeline);
+        CompletableFuture<Void> consumo = new CompletableFuture<>();
+        AtomicInteger recebidos = new AtomicInteger();
+        pipeline.subscribe(new AssinanteColetor(r -> recebidos.incrementAndGet(), consumo));
+
+        // acao
+        int aceitos = 0;
+        for (int i = 0; i < 200; i++) {
+            PedidoLocacao pedido = new PedidoLocacao(umUsuario().agora(), List.of(umFilme().agora()));
+            if (produtor.offer(pedido, 1, TimeUnit.MILLISECONDS, (s, p) -> false) >= 0) {
+                aceitos++;
+            }
+        }
+
+        // verificacao
+        assertTrue(aceitos < 50, "aceitos: " + aceitos);
+
+        liberar.countDown();
+        produtor.close();
+        consumo.get(10, TimeUnit.SECONDS);
+        pipeline.close();
+        assertEquals(aceitos, recebidos.get());
+        assertEquals(aceitos, gravadas.get());
+    }
+
+    private static Exception erroDe(List<ResultadoLocacao> resultados, Usuario usuario) {
+        return resultados.stream()
+                .filter(r -> r.getPedido().getUsuario() == usuario)
+                .findFirst()
+                .orElseThrow()
+                .getErro();
+    }
+
+    private static List<ResultadoLocacao> processar(PipelineLocacao pipeline, List<PedidoLocacao> pedidos)
+            throws Exception {
+        List<ResultadoLocacao> resultados = Collections.synchronizedList(new ArrayList<>());
+        CompletableFuture<Void> fim = new CompletableFuture<>();
+        pipeline.subscribe(new AssinanteColetor(resultados::add, fim));
+        try (SubmissionPublisher<PedidoLocacao> produtor = new SubmissionPublisher<>()) {
+            produtor.subscribe(pipeline);
+            pedidos.forEach(produtor::submit);
+        }
+        fim.get(10, TimeUnit.SECONDS);
+        pipeline.close();
+        return resultados;
+    }
+
+    private static final class AssinanteColetor implements Flow.Subscriber<ResultadoLocacao> {
+
+        private final Consumer<ResultadoLocacao> destino;
+        private final CompletableFuture<Void> fim;
+
+        AssinanteColetor(Consumer<ResultadoLocacao> destino, CompletableFuture<Void> fim) {
+            this.destino = destino;
+            this.fim = fim;
+        }
+
+        @Override
+        public void onSubscribe(Flow.Subscription assinatura) {
+            assinatura.request(Long.MAX_VALUE);
+        }
+
+        @Override
+        public void onNext(ResultadoLocacao resultado) {
+            destino.accept(resultado);
+        }
+
+        @Override
+        public void onError(Throwable erro) {
+            fim.completeExceptionally(erro);
+        }
+
+        @Override
+        public void onComplete() {
+            fim.complete(null);
+        }
+    }
+}
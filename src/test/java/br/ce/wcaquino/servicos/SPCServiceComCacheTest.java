@@ -0,0 +1,229 @@
+package br.ce.wcaquino.servicos;
+
+import br.ce.wcaquino.entidades.Usuario;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static br.ce.wcaquino.builders.UsuarioBuilder.umUsuario;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.*;
+import static org.mockito.MockitoAnnotations.openMocks;
+
+class SPCServiceComCacheTest {
+
+    @Mock
+    private SPCService delegado;
+
+    private final AtomicLong relogio = new AtomicLong();
+
+    private SPCServiceComCache cache;
+
+    @BeforeEach
+    void setup() {
+        openMocks(this);
+        cache = new SPCServiceComCache(delegado, Duration.ofMinutes(1), Duration.ofMinutes(10), 2, relogio::get);
+    }
+
+    @Test
+    void deveReutilizarRespostaDentroDoTtl() throws Exception {
+        // cenario
+        Usuario usuario = umUsuario().agora();
+        when(delegado.pussuiNegativacao(usuario)).thenReturn(false);
+
+        // acao
+        cache.pussuiNegativacao(usuario);
+        relogio.addAndGet(Duration.ofMinutes(9).toNanos());
+        boolean negativado = cache.pussuiNegativacao(usuario);
+
+        // verificacao
+        assertFalse(negativado);
+        verify(delegado, times(1)).pussuiNegativacao(usuario);
+        assertEquals(1, cache.getAcertos());
+        assertEquals(1, cache.getFalhas());
+    }
+
+    @Test
+    void deveConsultarNovamenteAposTtlDoNegativado() throws Exception {
+        // cenario
+        Usuario usuario = umUsuario().agora();
+        when(delegado.pussuiNegativacao(usuario)).thenReturn(true);
+
+        // acao
+        cache.pussuiNegativacao(usuario);
+        relogio.addAndGet(Duration.ofMinutes(1).toNanos());
+        cache.pussuiNegativacao(usuario);
+
+        // verificacao
+        verify(delegado, times(2)).pussuiNegativacao(usuario);
+    }
+
+    @Test
+    void deveDespejarUsuarioMenosUsadoAoAtingirCapacidade() throws Exception {
+        // cenario
+        Usuario usuario1 = umUsuario().agora();
+        Usuario usuario2 = umUsuario().comNome("Usuario 2").agora();
+        Usuario usuario3 = umUsuario().comNome("Usuario 3").agora();
+
+        // acao
+        cache.pussuiNegativacao(usuario1);
+        cache.pussuiNegativacao(usuario2);
+        cache.pussuiNegativacao(usuario1);
+        cache.pussuiNegativacao(usuario3);
+        cache.pussuiNegativacao(usuario1);
+        cache.pussuiNegativacao(usuario2);
+
+        // verificacao
+        verify(delegado, times(1)).pussuiNegativacao(usuario1);
+        verify(delegado, times(2)).pussuiNegativacao(usuario2);
+        assertEquals(2, cache.getDespejos());
+        assertEquals(2, cache.getTamanho());
+    }
+
+    @Test
+    void deveFazerUmaUnicaChamadaParaConsultasSimultaneas() throws Exception {
+        // cenario
+        Usuario usuario = umUsuario().agora();
+        CountDownLatch consultaIniciada = new CountDownLatch(1);
+        CountDownLatch liberarSpc = new CountDownLatch(1);
+        when(delegado.pussuiNegativacao(usuario)).thenAnswer(invocacao -> {
+            consultaIniciada.countDown();
+            liberarSpc.await();
+            return true;
+        });
+
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            // acao
+            Future<Boolean> primeira = executor.submit(() -> cache.pussuiNegativacao(usuario));
+            consultaIniciada.await();
+            Future<Boolean> segunda = executor.submit(() -> cache.pussuiNegativacao(usuario));
+            while (cache.getCoalescidas() == 0) {
+                Thread.onSpinWait();
+            }
+            liberarSpc.countDown();
+
+            // verificacao
+            assertTrue(primeira.get(5, TimeUnit.SECONDS));
+            assertTrue(segunda.get(5, TimeUnit.SECONDS));
+            verify(delegado, times(1)).pussuiNegativacao(usuario);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void deveConsultarEmLoteApenasUsuariosForaDoCache() throws Exception {
+        // cenario
+        Usuario usuario1 = umUsuario().agora();
+        Usuario usuario2 = umUsuario().comNome("Usuario 2").agora();
+        when(delegado.pussuiNegativacao(usuario1)).thenReturn(true);
+        when(delegado.obterNegativados(anyCollection())).thenReturn(Set.of());
+        cache.pussuiNegativacao(usuario1);
+
+        // acao
+        Set<Usuario> negativados = cache.obterNegativados(List.of(usuario1, usuario2));
+
+        // verificacao
+        assertEquals(Set.of(usuario1), negativados);
+        verify(delegado).obterNegativados(List.of(usuario2));
+    }
+
+    @Test
+    void deveAproveitarConsultaEmAndamentoNoLote() throws Exception {
+        // cenario
+        Usuario usuario1 = umUsuario().agora();
+        Usuario usuario2 = umUsuario().comNome("Usuario 2").agora();
+        CountDownLatch consultaIniciada = new CountDownLatch(1);
+        CountDownLatch liberarSpc = new CountDownLatch(1);
+        when(delegado.pussuiNegativacao(usuario1)).thenAnswer(invocacao -> {
+            consultaIniciada.countDown();
+            liberarSpc.await();
+            return true;
+        });
+        when(delegado.obterNegativados(anyCollection())).thenReturn(Set.of());
+
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            // acao
+            Future<Boolean> individual = executor.submit(() -> cache.pussuiNegativacao(usuario1));
+            consultaIniciada.await();
+            Future<Set<Usuario>> lote = executor.submit(() -> cache.obterNegativados(List.of(usuario1, usuario2)));
+            while (cache.getCoalescidas() == 0) {
+                Thread.onSpinWait();
+            }
+            liberarSpc.countDown();
+
+            // verificacao
+            assertTrue(individual.get(5, TimeUnit.SECONDS));
+            assertEquals(Set.of(usuario1), lote.get(5, TimeUnit.SECONDS));
+            verify(delegado, times(1)).pussuiNegativacao(usuario1);
+            verify(delegado).obterNegativados(List.of(usuario2));
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void deveRespeitarCapacidadeTotalComVariosSegmentos() throws Exception {
+        // cenario
+        cache = new SPCServiceComCache(delegado, Duration.ofMinutes(1), Duration.ofMinutes(10), 1000, relogio::get);
+        when(delegado.obterNegativados(anyCollection())).thenReturn(Set.of());
+        List<Usuario> usuarios = new ArrayList<>();
+        for (int i = 0; i < 5000; i++) {
+            usuarios.add(umUsuario().comNome("Usuario " + i).agora());
+        }
+
+        // acao
+        cache.obterNegativados(usuarios);
+
+        // verificacao
+        assertEquals(1000, cache.getTamanho());
+        assertEquals(4000, cache.getDespejos());
+    }
+
+    @Test
+    void deveLiberarConsultasCoalescidasQuandoOSpcLancarError() throws Exception {
+        // cenario
+        Usuario usuario = umUsuario().agora();
+        CountDownLatch consultaIniciada = new CountDownLatch(1);
+        CountDownLatch liberarSpc = new CountDownLatch(1);
+        when(delegado.pussuiNegativacao(usuario)).thenAnswer(invocacao -> {
+            consultaIniciada.countDown();
+            liberarSpc.await();
+            throw new AssertionError("Falha grave");
+        });
+
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            // acao
+            Future<Boolean> primeira = executor.submit(() -> cache.pussuiNegativacao(usuario));
+            consultaIniciada.await();
+            Future<Boolean> segunda = executor.submit(() -> cache.pussuiNegativacao(usuario));
+            while (cache.getCoalescidas() == 0) {
+                Thread.onSpinWait();
+            }
+            liberarSpc.countDown();
+
+            // verificacao
+            ExecutionException erro = assertThrows(ExecutionException.class, () -> segunda.get(5, TimeUnit.SECONDS));
+            assertInstanceOf(AssertionError.class, erro.getCause());
+            assertThrows(ExecutionException.class, () -> primeira.get(5, TimeUnit.SECONDS));
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,152 @@
+package br.ce.wcaquino.servicos;
+
+import br.ce.wcaquino.entidades.Usuario;
+import br.ce.wcaquino.exceptions.SPCIndisponivelException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static br.ce.wcaquino.builders.UsuarioBuilder.umUsuario;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+import static org.mockito.MockitoAnnotations.openMocks;
+
+class SPCServiceResilienteTest {
+
+    @Mock
+    private SPCService delegado;
+
+    private final AtomicLong relogio = new AtomicLong();
+    private final ExecutorService executor = Executors.newCachedThreadPool();
+    private final List<String> transicoes = new ArrayList<>();
+
+    private SPCServiceResiliente spc;
+
+    @BeforeEach
+    void setup() {
+        openMocks(this);
+        spc = new SPCServiceResiliente(delegado, Duration.ofMillis(200), 0.5, 4, Duration.ofSeconds(30),
+                relogio::get, executor);
+        spc.setOuvinte((anterior, novo) -> transicoes.add(anterior + "->" + novo));
+    }
+
+    @AfterEach
+    void encerrar() {
+        spc.close();
+    }
+
+    @Test
+    void deveRejeitarLimiteDeTaxaDeErroForaDoIntervalo() {
+        for (double limite : new double[]{0, -0.1, 1.01, Double.NaN}) {
+            assertThrows(IllegalArgumentException.class, () -> new SPCServiceResiliente(delegado,
+                    Duration.ofMillis(200), limite, 4, Duration.ofSeconds(30), relogio::get, executor));
+        }
+        new SPCServiceResiliente(delegado, Duration.ofMillis(200), 1, 4, Duration.ofSeconds(30), relogio::get,
+                executor);
+    }
+
+    @Test
+    void deveEsgotarOPrazoSemEsperarOSPC() throws Exception {
+        // cenario
+        CountDownLatch liberar = new CountDownLatch(1);
+        Usuario usuario = umUsuario().agora();
+        when(delegado.pussuiNegativacao(usuario)).thenAnswer(invocacao -> {
+            liberar.await();
+            return false;
+        });
+
+        // acao
+        long inicio = System.nanoTime();
+        assertThrows(TimeoutException.class, () -> spc.pussuiNegativacao(usuario));
+
+        // verificacao
+        assertTrue(System.nanoTime() - inicio < Duration.ofSeconds(2).toNanos());
+        assertEquals(1, spc.getPrazosEsgotados());
+        liberar.countDown();
+    }
+
+    @Test
+    void deveAbrirOCircuitoEFalharNaHoraQuandoATaxaDeErroPassarDoLimite() throws Exception {
+        // cenario
+        Usuario usuario = umUsuario().agora();
+        when(delegado.pussuiNegativacao(usuario))
+                .thenReturn(false)
+                .thenThrow(new RuntimeException("SPC fora"))
+                .thenReturn(false)
+                .thenThrow(new RuntimeException("SPC fora"));
+
+        // acao
+        spc.pussuiNegativacao(usuario);
+        assertThrows(RuntimeException.class, () -> spc.pussuiNegativacao(usuario));
+        spc.pussuiNegativacao(usuario);
+        assertThrows(RuntimeException.class, () -> spc.pussuiNegativacao(usuario));
+
+        // verificacao
+        assertEquals(EstadoCircuito.ABERTO, spc.getEstado());
+        assertThrows(SPCIndisponivelException.class, () -> spc.pussuiNegativacao(usuario));
+        verify(delegado, times(4)).pussuiNegativacao(usuario);
+        assertEquals(1, spc.getRejeitadas());
+        assertEquals(List.of("FECHADO->ABERTO"), transicoes);
+    }
+
+    @Test
+    void deveFecharOCircuitoQuandoAChamadaDeTesteTiverSucesso() throws Exception {
+        // cenario
+        Usuario usuario = umUsuario().agora();
+        when(delegado.pussuiNegativacao(usuario)).thenThrow(new RuntimeException("SPC fora"));
+        for (int i = 0; i < 4; i++) {
+            assertThrows(RuntimeException.class, () -> spc.pussuiNegativacao(usuario));
+        }
+        reset(delegado);
+        when(delegado.pussuiNegativacao(usuario)).thenReturn(true);
+
+        // acao
+        relogio.addAndGet(Duration.ofSeconds(29).toNanos());
+        assertThrows(SPCIndisponivelException.class, () -> spc.pussuiNegativacao(usuario));
+        relogio.addAndGet(Duration.ofSeconds(1).toNanos());
+        boolean negativado = spc.pussuiNegativacao(usuario);
+
+        // verificacao
+        assertTrue(negativado);
+        assertEquals(EstadoCircuito.FECHADO, spc.getEstado());
+        assertEquals(List.of("FECHADO->ABERTO", "ABERTO->SEMI_ABERTO", "SEMI_ABERTO->FECHADO"), transicoes);
+    }
+
+    @Test
+    void deveRepetirAConsultaQuandoDemorarMaisQueOPercentil() throws Exception {
+        // cenario
+        spc.setPercentilRepeticao(95);
+        Usuario usuario = umUsuario().agora();
+        AtomicInteger chamadas = new AtomicInteger();
+        CountDownLatch liberar = new CountDownLatch(1);
+        when(delegado.pussuiNegativacao(usuario)).thenAnswer(invocacao -> {
+            if (chamadas.incrementAndGet() == 101) {
+                liberar.await();
+            }
+            return true;
+        });
+        for (int i = 0; i < 100; i++) {
+            spc.pussuiNegativacao(usuario);
+        }
+
+        // acao
+        boolean negativado = spc.pussuiNegativacao(usuario);
+
+        // verificacao
+        assertTrue(negativado);
+        assertEquals(1, spc.getRepeticoes());
+        assertEquals(0, spc.getPrazosEsgotados());
+        liberar.countDown();
+    }
+}
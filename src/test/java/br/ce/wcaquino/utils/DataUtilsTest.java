@@ -0,0 +1,87 @@
+package br.ce.wcaquino.utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.Calendar;
+import java.util.Date;
+import java.util.List;
+import java.util.TimeZone;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DataUtilsTest {
+
+    @Test
+    void deveCalcularDiaSemanaPeloEpochDay() {
+        LocalDate data = LocalDate.of(1969, 12, 1);
+        for (int i = 0; i < 3000; i++, data = data.plusDays(1)) {
+            int esperado = data.getDayOfWeek().getValue() % 7 + 1;
+            assertEquals(esperado, DataUtils.diaSemana(data.toEpochDay()), data.toString());
+        }
+        assertTrue(DataUtils.verificarDiaSemana(LocalDate.of(2026, 10, 18), Calendar.SUNDAY));
+    }
+
+    @Test
+    void deveObterEpochDaySemCalendar() {
+        LocalDate data = LocalDate.of(1899, 2, 27);
+        for (int i = 0; i < 100_000; i += 7, data = data.plusDays(7)) {
+            assertEquals(data.toEpochDay(),
+                    DataUtils.obterEpochDay(data.getDayOfMonth(), data.getMonthValue(), data.getYear()));
+        }
+    }
+
+    @Test
+    void deveAdicionarDiasMantendoHorarioLocal() {
+        for (String zona : List.of("UTC", "America/Sao_Paulo", "Europe/Berlin", "Australia/Lord_Howe")) {
+            ZoneId fuso = ZoneId.of(zona);
+            ZonedDateTime agora = ZonedDateTime.of(2026, 10, 18, 15, 30, 0, 0, fuso);
+            long epochMilli = agora.toInstant().toEpochMilli();
+
+            for (int dias = -400; dias <= 400; dias += 13) {
+                ZonedDateTime esperado = agora.plusDays(dias);
+                assertEquals(esperado.toInstant().toEpochMilli(), DataUtils.adicionarDiasMilis(epochMilli, dias, fuso),
+                        esperado.toString());
+                assertEquals(esperado.toLocalDate().toEpochDay(),
+                        DataUtils.epochDay(esperado.toInstant().toEpochMilli(), fuso));
+            }
+            assertEquals(LocalDate.now(fuso).toEpochDay(), DataUtils.hoje(fuso));
+        }
+    }
+
+    @Test
+    void deveCompararDatasPeloDia() {
+        Date hoje = new Date();
+        assertTrue(DataUtils.isMesmaData(hoje, DataUtils.obterDataComDiferencaDias(0)));
+        assertFalse(DataUtils.isMesmaData(hoje, DataUtils.obterDataComDiferencaDias(1)));
+    }
+
+    @Test
+    void deveCompararDatasNoFusoPadraoAtual() {
+        // cenario
+        TimeZone original = TimeZone.getDefault();
+        Date antes = Date.from(Instant.parse("2026-10-18T09:00:00Z"));
+        Date depois = Date.from(Instant.parse("2026-10-18T11:00:00Z"));
+
+        try {
+            // acao
+            TimeZone.setDefault(TimeZone.getTimeZone("UTC"));
+            boolean mesmaDataUtc = DataUtils.isMesmaData(antes, depois);
+            TimeZone.setDefault(TimeZone.getTimeZone("Pacific/Kiritimati"));
+            boolean mesmaDataKiritimati = DataUtils.isMesmaData(antes, depois);
+            boolean domingo = DataUtils.verificarDiaSemana(antes, Calendar.SUNDAY);
+            long epochDay = DataUtils.epochDay(antes);
+
+            // verificacao
+            assertTrue(mesmaDataUtc);
+            assertFalse(mesmaDataKiritimati);
+            assertTrue(domingo);
+            assertEquals(DataUtils.epochDay(antes.getTime(), ZoneId.of("Pacific/Kiritimati")), epochDay);
+        } finally {
+            TimeZone.setDefault(original);
+        }
+    }
+}
@@ -0,0 +1,77 @@
+package br.ce.wcaquino.utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FilaCircularTest {
+
+    @Test
+    void deveRespeitarAOrdemEACapacidade() {
+        // cenario
+        FilaCircular<Integer> fila = new FilaCircular<>(3);
+
+        // acao
+        for (int i = 0; i < 4; i++) {
+            assertTrue(fila.oferecer(i));
+        }
+
+        // verificacao
+        assertEquals(4, fila.capacidade());
+        assertFalse(fila.oferecer(4));
+        assertEquals(0, fila.retirar());
+        assertTrue(fila.oferecer(4));
+        List<Integer> drenados = new ArrayList<>();
+        assertEquals(4, fila.drenar(drenados, 10));
+        assertEquals(List.of(1, 2, 3, 4), drenados);
+        assertNull(fila.retirar());
+        assertTrue(fila.isVazia());
+    }
+
+    @Test
+    void naoDevePerderNemDuplicarElementosComVariosProdutores() throws Exception {
+        // cenario
+        FilaCircular<Long> fila = new FilaCircular<>(64);
+        int produtores = 4;
+        int porProdutor = 20_000;
+        ExecutorService executor = Executors.newFixedThreadPool(produtores);
+        List<Future<?>> tarefas = new ArrayList<>();
+
+        // acao
+        for (int p = 0; p < produtores; p++) {
+            long base = (long) p * porProdutor;
+            tarefas.add(executor.submit(() -> {
+                for (long i = 1; i <= porProdutor; i++) {
+                    while (!fila.oferecer(base + i)) {
+                        Thread.yield();
+                    }
+                }
+            }));
+        }
+        long soma = 0;
+        for (int recebidos = 0; recebidos < produtores * porProdutor; ) {
+            Long elemento = fila.retirar();
+            if (elemento == null) {
+                Thread.yield();
+            } else {
+                soma += elemento;
+                recebidos++;
+            }
+        }
+        for (Future<?> tarefa : tarefas) {
+            tarefa.get();
+        }
+        executor.shutdown();
+
+        // verificacao
+        long total = (long) produtores * porProdutor;
+        assertEquals(total * (total + 1) / 2, soma);
+        assertTrue(fila.isVazia());
+    }
+}
@@ -0,0 +1,95 @@
+package br.ce.wcaquino.utils;
+
+import br.ce.wcaquino.entidades.Filme;
+import br.ce.wcaquino.entidades.Usuario;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static br.ce.wcaquino.builders.FilmeBuilder.umFilme;
+import static br.ce.wcaquino.builders.UsuarioBuilder.umUsuario;
+import static org.junit.jupiter.api.Assertions.*;
+
+class InternadorTest {
+
+    @Test
+    void deveDevolverSempreAMesmaInstanciaParaValoresIguais() {
+        // cenario
+        Internador<Usuario> internador = new Internador<>(Usuario::getNome);
+        Usuario primeiro = umUsuario().comNome("Maria").agora();
+        Usuario copia = umUsuario().comNome("Maria").agora();
+
+        // acao
+        Usuario canonico = internador.canonizar(primeiro);
+
+        // verificacao
+        assertSame(primeiro, canonico);
+        assertSame(primeiro, internador.canonizar(copia));
+        assertNotSame(primeiro, internador.canonizar(umUsuario().comNome("Jose").agora()));
+        assertNull(internador.canonizar(null));
+        assertEquals(2, internador.tamanho());
+    }
+
+    @Test
+    void deveUsarChaveExtraidaAoRegistrarMesmoSeOValorMudar() {
+        // cenario
+        Internador<Filme> internador = new Internador<>(Filme::getNome);
+        Filme canonico = internador.canonizar(umFilme().agora());
+
+        // acao
+        canonico.setEstoque(7);
+
+        // verificacao
+        assertSame(canonico, internador.canonizar(umFilme().semEstoque().agora()));
+        assertEquals(1, internador.tamanho());
+    }
+
+    @Test
+    void deveEscolherUmaUnicaInstanciaSobConcorrencia() throws Exception {
+        // cenario
+        Internador<Usuario> internador = new Internador<>(Usuario::getNome);
+        Set<Usuario> canonicos = ConcurrentHashMap.newKeySet();
+        List<Usuario> mantidos = new ArrayList<>();
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        List<Future<Usuario>> tarefas = new ArrayList<>();
+
+        // acao
+        for (int i = 0; i < 100; i++) {
+            tarefas.add(executor.submit(() -> internador.canonizar(umUsuario().comNome("Maria").agora())));
+        }
+        for (Future<Usuario> tarefa : tarefas) {
+            Usuario usuario = tarefa.get();
+            mantidos.add(usuario);
+            canonicos.add(usuario);
+        }
+        executor.shutdown();
+
+        // verificacao
+        assertEquals(1, canonicos.size());
+        assertTrue(mantidos.stream().allMatch(usuario -> usuario == mantidos.get(0)));
+    }
+
+    @Test
+    void deveLiberarInstanciasSemOutrasReferencias() throws Exception {
+        // cenario
+        Internador<Usuario> internador = new Internador<>(Usuario::getNome);
+        for (int i = 0; i < 1000; i++) {
+            internador.canonizar(umUsuario().comNome("Usuario " + i).agora());
+        }
+
+        // acao
+        for (int tentativa = 0; tentativa < 50 && internador.tamanho() > 0; tentativa++) {
+            System.gc();
+            Thread.sleep(10);
+        }
+
+        // verificacao
+        assertEquals(0, internador.tamanho());
+    }
+}